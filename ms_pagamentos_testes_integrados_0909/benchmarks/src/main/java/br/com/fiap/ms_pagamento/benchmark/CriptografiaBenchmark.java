@@ -0,0 +1,93 @@
+package br.com.fiap.ms_pagamento.benchmark;
+
+import br.com.fiap.ms_pagamento.config.CifraAesGcm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Custo da criptografia dos dados do cartão por pagamento (número + código de segurança):
+// - inserir: os dois campos cifrados (CampoCriptografadoInterceptor ao gravar), com o AAD de tabela, coluna e id
+// - ler: os dois campos decifrados (CriptografiaService.abrir nas projeções)
+// - lerLegadoTextoPuro: valor sem o prefixo da chave, que a CriptografiaService devolve como está
+// - inserirSemPool: Cipher.getInstance a cada campo, para comparação
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CriptografiaBenchmark {
+
+    private static final String NUMERO = "2365145936541245";
+    private static final String CODIGO = "585";
+
+    private CifraAesGcm cifra;
+    private SecretKeySpec chave;
+    private SecureRandom random;
+    private String numeroCifrado;
+    private String codigoCifrado;
+    private byte[] aadNumero;
+    private byte[] aadCodigo;
+
+    @Setup
+    public void setup() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        cifra = new CifraAesGcm(Map.of("k1", bytes), "k1");
+        chave = new SecretKeySpec(bytes, "AES");
+        random = new SecureRandom();
+        aadNumero = "tb_pagamento.numero_do_cartao#1".getBytes(StandardCharsets.UTF_8);
+        aadCodigo = "tb_pagamento.codigo_de_seguranca#1".getBytes(StandardCharsets.UTF_8);
+        numeroCifrado = cifra.cifrar(NUMERO, aadNumero);
+        codigoCifrado = cifra.cifrar(CODIGO, aadCodigo);
+    }
+
+    @Benchmark
+    public void inserir(Blackhole blackhole) {
+        blackhole.consume(cifra.cifrar(NUMERO, aadNumero));
+        blackhole.consume(cifra.cifrar(CODIGO, aadCodigo));
+    }
+
+    @Benchmark
+    public void ler(Blackhole blackhole) {
+        blackhole.consume(cifra.decifrar(numeroCifrado, aadNumero));
+        blackhole.consume(cifra.decifrar(codigoCifrado, aadCodigo));
+    }
+
+    @Benchmark
+    public void lerLegadoTextoPuro(Blackhole blackhole) {
+        blackhole.consume(cifra.cifrado(NUMERO) ? cifra.decifrar(NUMERO, aadNumero) : NUMERO);
+        blackhole.consume(cifra.cifrado(CODIGO) ? cifra.decifrar(CODIGO, aadCodigo) : CODIGO);
+    }
+
+    @Benchmark
+    public void inserirSemPool(Blackhole blackhole) throws GeneralSecurityException {
+        blackhole.consume(cifrarSemPool(NUMERO));
+        blackhole.consume(cifrarSemPool(CODIGO));
+    }
+
+    private byte[] cifrarSemPool(String texto) throws GeneralSecurityException {
+        byte[] iv = new byte[12];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, chave, new GCMParameterSpec(128, iv));
+        return cipher.doFinal(texto.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.fiap.ms_pagamento.benchmark;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.model.Status;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Lista de pagamentos (resposta de GET /pagamentos e corpo de POST /pagamentos/batch) em JSON x Smile x CBOR.
+// O tamanho de cada formato, com e sem gzip, é impresso no setup
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FormatoBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String formato;
+
+    @Param({"100", "1000"})
+    private int quantidade;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+
+    private List<PagamentoDTO> pagamentos;
+    private byte[] corpo;
+
+    @Setup
+    public void setup() throws IOException {
+        // mesmos builders usados pelos conversores HTTP registrados no WebConfiguration
+        ObjectMapper mapper = switch (formato) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        writer = mapper.writerFor(PagamentoDTO[].class);
+        reader = mapper.readerFor(PagamentoDTO[].class);
+
+        pagamentos = new ArrayList<>(quantidade);
+        for (long i = 1; i <= quantidade; i++) {
+            pagamentos.add(new PagamentoDTO(i, BigDecimal.valueOf(100 + i, 2), "Cliente " + i, "2365145936541245",
+                    "07/28", "585", i % 2 == 0 ? Status.CONFIRMADO : Status.CRIADO, i, i % 3 + 1));
+        }
+        corpo = serializar();
+        System.out.printf("%n%s, %d pagamentos: %d bytes, %d bytes com gzip%n",
+                formato, quantidade, corpo.length, gzip(corpo).length);
+    }
+
+    @Benchmark
+    public byte[] serializar() throws IOException {
+        return writer.writeValueAsBytes(pagamentos.toArray(PagamentoDTO[]::new));
+    }
+
+    @Benchmark
+    public PagamentoDTO[] desserializar() throws IOException {
+        return reader.readValue(corpo);
+    }
+
+    private static byte[] gzip(byte[] dados) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(dados);
+        }
+        return out.toByteArray();
+    }
+}
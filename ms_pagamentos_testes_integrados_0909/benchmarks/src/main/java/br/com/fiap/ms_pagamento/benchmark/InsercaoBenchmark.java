@@ -0,0 +1,95 @@
+package br.com.fiap.ms_pagamento.benchmark;
+
+import br.com.fiap.ms_pagamento.MsPagamentoApplication;
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.service.PagamentoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Gravação de 500 pagamentos (H2 em memória), cada operação:
+// - umPorUm: 500 chamadas a PagamentoService.insert, uma transação cada (como 500 POST /pagamentos)
+// - emLote: um PagamentoService.insertAll com os 500 (POST /pagamentos/batch)
+// batchSize é o hibernate.jdbc.batch_size: 50 é o configurado, 1 desliga o batch JDBC e mostra quanto do
+// ganho do lote vem do batch e quanto de uma transação só.
+// As tabelas são esvaziadas a cada iteração para o tamanho do banco não entrar na medida.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InsercaoBenchmark {
+
+    private static final int PAGAMENTOS = 500;
+
+    @Param({"50", "1"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private PagamentoService service;
+    private JdbcTemplate jdbcTemplate;
+    private List<PagamentoDTO> pagamentos;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(MsPagamentoApplication.class)
+                .properties("server.port=0", "spring.jpa.show-sql=false", "logging.level.root=WARN",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        // só a gravação entra na medida: os eventos são gravados (mesma transação), não publicados
+                        "pagamento.outbox.publicador.enabled=false", "pagamento.arquivamento.enabled=false",
+                        "pagamento.recifragem.enabled=false")
+                .run();
+        service = context.getBean(PagamentoService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        pagamentos = new ArrayList<>(PAGAMENTOS);
+        for (long i = 0; i < PAGAMENTOS; i++) {
+            pagamentos.add(new PagamentoDTO(null, BigDecimal.valueOf(100 + i), "Cliente " + i, "2365145936541245",
+                    "07/28", "585", Status.CRIADO, i + 1, 2L));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void limpar() {
+        jdbcTemplate.update("DELETE FROM tb_evento_outbox");
+        jdbcTemplate.update("DELETE FROM tb_pagamento");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int umPorUm() {
+        int ultimo = 0;
+        for (PagamentoDTO dto : pagamentos) {
+            ultimo += service.insert(dto).getId().intValue();
+        }
+        return ultimo;
+    }
+
+    @Benchmark
+    public List<PagamentoDTO> emLote() {
+        return service.insertAll(pagamentos);
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.fiap.ms_pagamento.benchmark;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.dto.ValidationErrorDTO;
+import br.com.fiap.ms_pagamento.model.Status;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Serialização/desserialização Jackson dos corpos de requisição e resposta
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonBenchmark {
+
+    private ObjectWriter pagamentoWriter;
+    private ObjectReader pagamentoReader;
+    private ObjectWriter erroWriter;
+    private ObjectReader erroReader;
+
+    private PagamentoDTO pagamento;
+    private byte[] pagamentoJson;
+    private ValidationErrorDTO erro;
+    private byte[] erroJson;
+
+    @Setup
+    public void setup() throws IOException {
+        // mesma configuração usada pelos conversores HTTP do Spring MVC
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        pagamentoWriter = mapper.writerFor(PagamentoDTO.class);
+        pagamentoReader = mapper.readerFor(PagamentoDTO.class);
+        erroWriter = mapper.writerFor(ValidationErrorDTO.class);
+        erroReader = mapper.readerFor(ValidationErrorDTO.class);
+
+        pagamento = new PagamentoDTO(1L, BigDecimal.valueOf(32.25), "Bach", "2365145936541245", "07/28", "585",
+                Status.CRIADO, 1L, 2L);
+        pagamentoJson = pagamentoWriter.writeValueAsBytes(pagamento);
+
+        erro = new ValidationErrorDTO("2024-09-09T12:00:00Z", 422, "Dados inválidos", "/pagamentos");
+        erro.addError("valor", "O valor deve ser positivo");
+        erro.addError("pedidoId", "Pedido ID é obrigatório");
+        erro.addError("validade", "A validade do cartão dever ter 5 caracteres");
+        erroJson = erroWriter.writeValueAsBytes(erro);
+    }
+
+    @Benchmark
+    public byte[] serializarPagamento() throws IOException {
+        return pagamentoWriter.writeValueAsBytes(pagamento);
+    }
+
+    @Benchmark
+    public PagamentoDTO desserializarPagamento() throws IOException {
+        return pagamentoReader.readValue(pagamentoJson);
+    }
+
+    @Benchmark
+    public byte[] serializarErroDeValidacao() throws IOException {
+        return erroWriter.writeValueAsBytes(erro);
+    }
+
+    @Benchmark
+    public ValidationErrorDTO desserializarErroDeValidacao() throws IOException {
+        return erroReader.readValue(erroJson);
+    }
+}
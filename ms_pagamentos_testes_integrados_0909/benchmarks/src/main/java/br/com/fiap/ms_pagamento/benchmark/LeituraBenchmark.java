@@ -0,0 +1,97 @@
+package br.com.fiap.ms_pagamento.benchmark;
+
+import br.com.fiap.ms_pagamento.MsPagamentoApplication;
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.model.Pagamento;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import br.com.fiap.ms_pagamento.service.PagamentoService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Leitura de 100 mil pagamentos (H2 em memória), nas duas formas:
+// - entidades: SELECT de entidades gerenciadas + new PagamentoDTO(entity), como o findAll fazia antes
+// - projecao: constructor expression direto no DTO (PagamentoRepository.streamAll)
+// Rode com -prof gc para ver gc.alloc.rate.norm (bytes por leitura completa).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LeituraBenchmark {
+
+    private static final int LINHAS = 100_000;
+
+    private ConfigurableApplicationContext context;
+    private PagamentoRepository repository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setup() {
+        // sobe com servidor (porta aleatória): o WebConfiguration usa @EnableWebMvc, que exige ServletContext
+        context = new SpringApplicationBuilder(MsPagamentoApplication.class)
+                .properties("server.port=0", "spring.jpa.show-sql=false", "logging.level.root=WARN")
+                .run();
+        repository = context.getBean(PagamentoRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        PagamentoService service = context.getBean(PagamentoService.class);
+        List<PagamentoDTO> lote = new ArrayList<>(PagamentoService.MAX_BATCH_SIZE);
+        for (long i = 0; i < LINHAS; i++) {
+            lote.add(new PagamentoDTO(null, BigDecimal.valueOf(100 + i % 1000), "Cliente " + i, "2365145936541245",
+                    "07/28", "585", Status.CRIADO, i + 1, 1 + i % 3));
+            if (lote.size() == PagamentoService.MAX_BATCH_SIZE) {
+                service.insertAll(lote);
+                lote.clear();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<PagamentoDTO> entidades() {
+        return readOnly.execute(status -> entityManager
+                .createQuery("SELECT p FROM Pagamento p ORDER BY p.id", Pagamento.class)
+                .getResultStream()
+                .map(PagamentoDTO::new)
+                .toList());
+    }
+
+    @Benchmark
+    public List<PagamentoDTO> projecao() {
+        return readOnly.execute(status -> {
+            try (var stream = repository.streamAll()) {
+                return stream.toList();
+            }
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.fiap.ms_pagamento.controller.handlers;
+
+import br.com.fiap.ms_pagamento.dto.CustomErrorDTO;
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.service.exception.ResourceNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Montagem das respostas de erro (404 e 422) pelo ControllerExceptionHandler
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ControllerExceptionHandlerBenchmark {
+
+    private ControllerExceptionHandler handler;
+    private MockHttpServletRequest request;
+    private LocalValidatorFactoryBean validator;
+    private MethodArgumentNotValidException validationException;
+    private ResourceNotFoundException notFoundException;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        handler = new ControllerExceptionHandler();
+        request = new MockHttpServletRequest("POST", "/pagamentos");
+
+        validator = new LocalValidatorFactoryBean();
+        validator.afterPropertiesSet();
+        PagamentoDTO invalido = new PagamentoDTO(null, BigDecimal.valueOf(-1), "Bach", "2365145936541245", "7/28",
+                "58", Status.CRIADO, null, 2L);
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(invalido, "pagamentoDTO");
+        validator.validate(invalido, bindingResult);
+
+        MethodParameter parameter = new MethodParameter(
+                ControllerExceptionHandlerBenchmark.class.getDeclaredMethod("alvo", PagamentoDTO.class), 0);
+        validationException = new MethodArgumentNotValidException(parameter, bindingResult);
+        notFoundException = new ResourceNotFoundException("Recurso não encontrado! Id: 10");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validator.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<CustomErrorDTO> erroDeValidacao() {
+        return handler.methodArgumentNotValidation(validationException, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<CustomErrorDTO> recursoNaoEncontrado() {
+        return handler.resourceNotFound(notFoundException, request);
+    }
+
+    // método alvo só para montar o MethodParameter da exception
+    private static void alvo(PagamentoDTO dto) {
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.model.Pagamento;
+import br.com.fiap.ms_pagamento.model.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Conversões entidade <-> DTO feitas em toda requisição.
+// Fica no pacote service para acessar PagamentoService.copyDtoToEntity (package-private).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PagamentoServiceBenchmark {
+
+    private PagamentoService service;
+    private Pagamento entity;
+    private PagamentoDTO dto;
+
+    @Setup
+    public void setup() {
+        service = new PagamentoService();
+        entity = new Pagamento(1L, BigDecimal.valueOf(32.25), "Bach", "2365145936541245", "07/28", "585",
+                Status.CRIADO, 1L, 2L);
+        dto = new PagamentoDTO(entity);
+    }
+
+    @Benchmark
+    public PagamentoDTO novoPagamentoDTO() {
+        return new PagamentoDTO(entity);
+    }
+
+    @Benchmark
+    public Pagamento copyDtoToEntity() {
+        Pagamento novo = new Pagamento();
+        service.copyDtoToEntity(dto, novo);
+        return novo;
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.fiap.ms_pagamento.carga;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Parâmetros do teste, lidos das propriedades de sistema carga.* (ex.: mvn verify -Dcarga.taxa=500)
+public record Configuracao(URI url,
+                           int taxa,
+                           Duration duracao,
+                           Duration aquecimento,
+                           Map<Operacao, Integer> mix,
+                           Duration timeout,
+                           Path baseline,
+                           double tolerancia,
+                           double folgaMs,
+                           double maxErros,
+                           Path resultados,
+                           boolean atualizarBaseline) {
+
+    public static Configuracao lerPropriedades() {
+        return new Configuracao(
+                URI.create(propriedade("url", "http://localhost:8080")),
+                Integer.parseInt(propriedade("taxa", "100")),
+                Duration.parse("PT" + propriedade("duracao", "60s")),
+                Duration.parse("PT" + propriedade("aquecimento", "10s")),
+                lerMix(propriedade("mix", "GET=60,POST=20,PUT=15,DELETE=5")),
+                Duration.parse("PT" + propriedade("timeout", "5s")),
+                Path.of(propriedade("baseline", "baseline/baseline.properties")),
+                Double.parseDouble(propriedade("tolerancia", "0.20")),
+                Double.parseDouble(propriedade("folga-ms", "1")),
+                Double.parseDouble(propriedade("max-erros", "0.01")),
+                Path.of(propriedade("resultados", "target/carga")),
+                Boolean.parseBoolean(propriedade("atualizar-baseline", "false")));
+    }
+
+    private static String propriedade(String nome, String padrao) {
+        return System.getProperty("carga." + nome, padrao);
+    }
+
+    // "GET=60,POST=20,PUT=15,DELETE=5" - pesos relativos de cada operação
+    private static Map<Operacao, Integer> lerMix(String mix) {
+        Map<Operacao, Integer> pesos = new EnumMap<>(Operacao.class);
+        for (String item : mix.split(",")) {
+            String[] partes = item.trim().split("=");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("carga.mix inválido: " + mix);
+            }
+            pesos.put(Operacao.valueOf(partes[0].trim().toUpperCase()), Integer.parseInt(partes[1].trim()));
+        }
+        return pesos;
+    }
+}
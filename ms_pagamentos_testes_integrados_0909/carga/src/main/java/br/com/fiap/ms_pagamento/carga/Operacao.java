@@ -0,0 +1,5 @@
+package br.com.fiap.ms_pagamento.carga;
+
+public enum Operacao {
+    GET, POST, PUT, DELETE
+}
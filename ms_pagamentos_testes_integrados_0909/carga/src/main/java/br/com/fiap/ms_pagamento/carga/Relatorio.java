@@ -0,0 +1,139 @@
+package br.com.fiap.ms_pagamento.carga;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+// Tabela de percentis no console, distribuição completa (.hgrm, em ms) por operação em carga.resultados
+// e comparação do p99 com o baseline gravado.
+public class Relatorio {
+
+    private static final String TOTAL = "TOTAL";
+    private static final double MICROS_POR_MS = 1000.0;
+
+    private final Configuracao configuracao;
+
+    public Relatorio(Configuracao configuracao) {
+        this.configuracao = configuracao;
+    }
+
+    public void gravar(Resultado resultado) throws IOException {
+        Files.createDirectories(configuracao.resultados());
+        PrintStream out = System.out;
+        out.printf(Locale.ROOT, "%n%-8s %9s %7s %9s %9s %9s %9s %9s %14s%n", "operacao", "total", "erros",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "p99 servico ms");
+
+        Properties atual = new Properties();
+        for (Operacao operacao : Operacao.values()) {
+            Histogram resposta = resultado.resposta(operacao);
+            if (resposta.getTotalCount() == 0) {
+                continue;
+            }
+            linha(out, operacao.name(), resposta, resultado.servico(operacao), resultado.erros(operacao));
+            distribuicao(operacao.name(), resposta);
+            guardar(atual, operacao.name(), resposta, resultado.erros(operacao));
+        }
+        Histogram total = resultado.respostaTotal();
+        linha(out, TOTAL, total, resultado.servicoTotal(), resultado.errosTotal());
+        distribuicao(TOTAL, total);
+        guardar(atual, TOTAL, total, resultado.errosTotal());
+
+        try (Writer writer = Files.newBufferedWriter(configuracao.resultados().resolve("resultado.properties"))) {
+            atual.store(writer, "p99 em ms por operação - para virar o novo baseline: -Dcarga.atualizar-baseline=true");
+        }
+        out.printf("%nDistribuições em %s%n", configuracao.resultados().toAbsolutePath());
+    }
+
+    // falha (exceção -> build quebrado) quando o p99 de alguma operação passa do baseline + tolerância
+    // ou quando a taxa de erros passa de carga.max-erros
+    public void verificar(Resultado resultado) throws IOException {
+        Histogram total = resultado.respostaTotal();
+        List<String> problemas = new ArrayList<>();
+        double taxaErros = total.getTotalCount() == 0 ? 1.0 : (double) resultado.errosTotal() / total.getTotalCount();
+        if (taxaErros > configuracao.maxErros()) {
+            problemas.add(String.format(Locale.ROOT, "%.2f%% de erros (máximo %.2f%%)", taxaErros * 100,
+                    configuracao.maxErros() * 100));
+        }
+
+        // execução com erros não serve de referência: nem grava nem compara o baseline
+        if (problemas.isEmpty()) {
+            compararComBaseline(resultado, problemas);
+        }
+
+        if (!problemas.isEmpty()) {
+            throw new IllegalStateException("Teste de carga reprovado: " + String.join("; ", problemas));
+        }
+        System.out.println("Teste de carga aprovado");
+    }
+
+    private void compararComBaseline(Resultado resultado, List<String> problemas) throws IOException {
+        Path arquivo = configuracao.baseline();
+        if (configuracao.atualizarBaseline() || !Files.exists(arquivo)) {
+            if (arquivo.getParent() != null) {
+                Files.createDirectories(arquivo.getParent());
+            }
+            Files.copy(configuracao.resultados().resolve("resultado.properties"), arquivo,
+                    StandardCopyOption.REPLACE_EXISTING);
+            System.out.printf("Baseline gravado em %s%n", arquivo.toAbsolutePath());
+            return;
+        }
+        Properties baseline = new Properties();
+        try (Reader reader = Files.newBufferedReader(arquivo)) {
+            baseline.load(reader);
+        }
+        for (Operacao operacao : Operacao.values()) {
+            comparar(baseline, operacao.name(), resultado.resposta(operacao), problemas);
+        }
+        comparar(baseline, TOTAL, resultado.respostaTotal(), problemas);
+    }
+
+    private void comparar(Properties baseline, String nome, Histogram histograma, List<String> problemas) {
+        String referencia = baseline.getProperty(nome + ".p99");
+        if (referencia == null || histograma.getTotalCount() == 0) {
+            return;
+        }
+        double p99Baseline = Double.parseDouble(referencia);
+        double p99 = p99(histograma);
+        double limite = Math.max(p99Baseline * (1 + configuracao.tolerancia()), p99Baseline + configuracao.folgaMs());
+        if (p99 > limite) {
+            problemas.add(String.format(Locale.ROOT, "%s p99 %.2f ms > %.2f ms (baseline %.2f ms)", nome, p99,
+                    limite, p99Baseline));
+        }
+    }
+
+    private void distribuicao(String nome, Histogram histograma) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(configuracao.resultados().resolve(nome + ".hgrm")))) {
+            histograma.outputPercentileDistribution(out, MICROS_POR_MS);
+        }
+    }
+
+    private static void guardar(Properties properties, String nome, Histogram histograma, long erros) {
+        properties.setProperty(nome + ".p99", String.format(Locale.ROOT, "%.3f", p99(histograma)));
+        properties.setProperty(nome + ".total", Long.toString(histograma.getTotalCount()));
+        properties.setProperty(nome + ".erros", Long.toString(erros));
+    }
+
+    private static void linha(PrintStream out, String nome, Histogram resposta, Histogram servico, long erros) {
+        out.printf(Locale.ROOT, "%-8s %9d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %14.2f%n", nome, resposta.getTotalCount(),
+                erros, ms(resposta, 50), ms(resposta, 90), ms(resposta, 99), ms(resposta, 99.9),
+                resposta.getMaxValue() / MICROS_POR_MS, ms(servico, 99));
+    }
+
+    private static double p99(Histogram histograma) {
+        return ms(histograma, 99);
+    }
+
+    private static double ms(Histogram histograma, double percentil) {
+        return histograma.getValueAtPercentile(percentil) / MICROS_POR_MS;
+    }
+}
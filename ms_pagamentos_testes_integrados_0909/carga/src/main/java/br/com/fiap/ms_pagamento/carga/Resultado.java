@@ -0,0 +1,86 @@
+package br.com.fiap.ms_pagamento.carga;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Latências em microssegundos por operação.
+// resposta: do instante em que a requisição DEVERIA ter saído até a resposta (corrige a omissão coordenada -
+// se o gerador ou o servidor atrasam, a espera entra na medida). servico: do envio real até a resposta.
+// Depois de encerrar() respostas atrasadas são ignoradas - os histogramas não podem mudar durante o relatório.
+public class Resultado {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean encerrado;
+
+    private final Map<Operacao, Histogram> resposta = new EnumMap<>(Operacao.class);
+    private final Map<Operacao, Histogram> servico = new EnumMap<>(Operacao.class);
+    private final Map<Operacao, LongAdder> erros = new EnumMap<>(Operacao.class);
+
+    public Resultado() {
+        for (Operacao operacao : Operacao.values()) {
+            resposta.put(operacao, new ConcurrentHistogram(3));
+            servico.put(operacao, new ConcurrentHistogram(3));
+            erros.put(operacao, new LongAdder());
+        }
+    }
+
+    public void registrar(Operacao operacao, long previstoNanos, long enviadoNanos, long fimNanos, boolean erro) {
+        // read lock: vários registros em paralelo, só o encerrar() é exclusivo
+        lock.readLock().lock();
+        try {
+            if (encerrado) {
+                return;
+            }
+            resposta.get(operacao).recordValue(Math.max(0, (fimNanos - previstoNanos) / 1000));
+            servico.get(operacao).recordValue(Math.max(0, (fimNanos - enviadoNanos) / 1000));
+            if (erro) {
+                erros.get(operacao).increment();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void encerrar() {
+        lock.writeLock().lock();
+        try {
+            encerrado = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Histogram resposta(Operacao operacao) {
+        return resposta.get(operacao);
+    }
+
+    public Histogram servico(Operacao operacao) {
+        return servico.get(operacao);
+    }
+
+    public long erros(Operacao operacao) {
+        return erros.get(operacao).sum();
+    }
+
+    public Histogram respostaTotal() {
+        Histogram total = new Histogram(3);
+        resposta.values().forEach(total::add);
+        return total;
+    }
+
+    public Histogram servicoTotal() {
+        Histogram total = new Histogram(3);
+        servico.values().forEach(total::add);
+        return total;
+    }
+
+    public long errosTotal() {
+        return erros.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+}
@@ -0,0 +1,235 @@
+package br.com.fiap.ms_pagamento.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Gerador de carga em modelo aberto: as requisições saem numa taxa fixa (carga.taxa por segundo), sem esperar
+// as anteriores responderem - como clientes independentes. Uma resposta lenta não segura as próximas.
+// Uso: suba o ms-pagamento (java -jar target/ms-pagamento-0.0.1-SNAPSHOT-exec.jar, com PAGAMENTO_CHAVE_K1 - veja o
+// README) e rode mvn verify nesta pasta.
+public class TesteDeCarga {
+
+    // ids usados pelo GET e pelo PUT (nunca são excluídos)
+    private static final int IDS_ESTAVEIS = 1024;
+
+    private final Configuracao configuracao;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Resultado resultado = new Resultado();
+
+    private final AtomicLongArray idsEstaveis = new AtomicLongArray(IDS_ESTAVEIS);
+    private final AtomicLong totalEstaveis = new AtomicLong();
+    // metade dos pagamentos criados pelo POST vai para cá e é consumida pelo DELETE
+    private final ConcurrentLinkedQueue<Long> idsParaExcluir = new ConcurrentLinkedQueue<>();
+    private final AtomicLong criados = new AtomicLong();
+
+    private final Operacao[] sorteio;
+
+    public TesteDeCarga(Configuracao configuracao) {
+        this.configuracao = configuracao;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(configuracao.timeout())
+                .build();
+        this.sorteio = montarSorteio(configuracao.mix());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Configuracao configuracao = Configuracao.lerPropriedades();
+        Resultado resultado = new TesteDeCarga(configuracao).executar();
+
+        Relatorio relatorio = new Relatorio(configuracao);
+        relatorio.gravar(resultado);
+        relatorio.verificar(resultado);
+    }
+
+    public Resultado executar() throws InterruptedException {
+        carregarIdsIniciais();
+
+        long intervalo = TimeUnit.SECONDS.toNanos(1) / configuracao.taxa();
+        long aquecimento = configuracao.aquecimento().toNanos();
+        long inicio = System.nanoTime();
+        long inicioMedicao = inicio + aquecimento;
+        long fim = inicioMedicao + configuracao.duracao().toNanos();
+        System.out.printf("Carga: %d req/s por %ds (+%ds de aquecimento) em %s, mix %s%n", configuracao.taxa(),
+                configuracao.duracao().toSeconds(), configuracao.aquecimento().toSeconds(), configuracao.url(),
+                configuracao.mix());
+
+        List<CompletableFuture<?>> pendentes = new ArrayList<>();
+        for (long previsto = inicio; previsto < fim; previsto += intervalo(previsto - inicio, aquecimento, intervalo)) {
+            esperarAte(previsto);
+            // o horário previsto (e não o real) é a referência da latência: atraso do gerador também conta
+            CompletableFuture<?> requisicao = disparar(sortear(), previsto, previsto >= inicioMedicao);
+            pendentes.add(requisicao);
+            if (pendentes.size() >= 10_000) {
+                pendentes.removeIf(CompletableFuture::isDone);
+            }
+        }
+        // falhas já foram contadas no whenComplete; aqui só espera as últimas respostas
+        CompletableFuture.allOf(pendentes.toArray(CompletableFuture[]::new))
+                .exceptionally(erro -> null)
+                .completeOnTimeout(null, configuracao.timeout().toMillis() * 2, TimeUnit.MILLISECONDS)
+                .join();
+        resultado.encerrar();
+        return resultado;
+    }
+
+    private CompletableFuture<?> disparar(Operacao operacao, long previsto, boolean medir) {
+        Long id = null;
+        if (operacao == Operacao.DELETE) {
+            id = idsParaExcluir.poll();
+            if (id == null) {
+                // nada criado ainda para excluir: a vaga vira uma leitura, para manter a taxa
+                operacao = Operacao.GET;
+            }
+        }
+        if (operacao == Operacao.GET || operacao == Operacao.PUT) {
+            id = idEstavel();
+        }
+        Operacao executada = operacao;
+        HttpRequest request = montarRequisicao(executada, id);
+        long enviado = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, erro) -> {
+                    long agora = System.nanoTime();
+                    // 409 no PUT é conflito de versão com outro PUT no mesmo id: resposta esperada, não erro
+                    boolean falhou = erro != null || (response.statusCode() >= 400
+                            && !(executada == Operacao.PUT && response.statusCode() == 409));
+                    if (!falhou && executada == Operacao.POST) {
+                        guardarCriado(response);
+                    }
+                    if (medir) {
+                        resultado.registrar(executada, previsto, enviado, agora, falhou);
+                    }
+                });
+    }
+
+    private HttpRequest montarRequisicao(Operacao operacao, Long id) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(configuracao.timeout());
+        return switch (operacao) {
+            case GET -> builder.uri(endereco("/pagamentos/" + id)).GET().build();
+            case POST -> builder.uri(endereco("/pagamentos"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo()))
+                    .build();
+            case PUT -> builder.uri(endereco("/pagamentos/" + id))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(corpo()))
+                    .build();
+            case DELETE -> builder.uri(endereco("/pagamentos/" + id)).DELETE().build();
+        };
+    }
+
+    private String corpo() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BigDecimal valor = BigDecimal.valueOf(random.nextLong(100, 1_000_000), 2);
+        return """
+                {"valor":%s,"nome":"Carga","numeroDoCartao":"1234567890123456","validade":"12/30",\
+                "codigoDeSeguranca":"123","status":"CRIADO","pedidoId":%d,"formaDePagamentoId":%d}"""
+                .formatted(valor.toPlainString(), random.nextLong(1, 100_000), random.nextLong(1, 4));
+    }
+
+    // POST responde 201 com Location: .../pagamentos/{id}
+    private void guardarCriado(HttpResponse<?> response) {
+        response.headers().firstValue("Location").ifPresent(location -> {
+            long id = Long.parseLong(location.substring(location.lastIndexOf('/') + 1));
+            if (criados.getAndIncrement() % 2 == 0) {
+                idsParaExcluir.add(id);
+            } else {
+                guardarEstavel(id);
+            }
+        });
+    }
+
+    private void carregarIdsIniciais() {
+        HttpRequest request = HttpRequest.newBuilder(endereco("/pagamentos?size=100"))
+                .timeout(configuracao.timeout())
+                .GET()
+                .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("GET /pagamentos respondeu " + response.statusCode());
+            }
+            for (JsonNode pagamento : objectMapper.readTree(response.body())) {
+                guardarEstavel(pagamento.get("id").asLong());
+            }
+        } catch (ConnectException e) {
+            throw new IllegalStateException("Nenhuma instância do ms-pagamento respondendo em " + configuracao.url(), e);
+        } catch (IOException e) {
+            throw new IllegalStateException("Falha ao ler os pagamentos iniciais", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        if (totalEstaveis.get() == 0) {
+            throw new IllegalStateException("A instância não tem pagamentos para o GET e o PUT usarem");
+        }
+    }
+
+    private void guardarEstavel(long id) {
+        long posicao = totalEstaveis.getAndIncrement();
+        idsEstaveis.set((int) (posicao % IDS_ESTAVEIS), id);
+    }
+
+    private long idEstavel() {
+        int preenchidos = (int) Math.min(totalEstaveis.get(), IDS_ESTAVEIS);
+        return idsEstaveis.get(ThreadLocalRandom.current().nextInt(preenchidos));
+    }
+
+    private Operacao sortear() {
+        return sorteio[ThreadLocalRandom.current().nextInt(sorteio.length)];
+    }
+
+    private URI endereco(String caminho) {
+        return configuracao.url().resolve(caminho);
+    }
+
+    // durante o aquecimento a taxa sobe de 10% a 100%: a JVM fria do servidor não recebe a carga cheia de uma vez
+    private static long intervalo(long decorrido, long aquecimento, long intervaloNominal) {
+        if (decorrido >= aquecimento) {
+            return intervaloNominal;
+        }
+        double fracao = 0.1 + 0.9 * decorrido / aquecimento;
+        return (long) (intervaloNominal / fracao);
+    }
+
+    private static void esperarAte(long instante) {
+        long restante;
+        while ((restante = instante - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(restante);
+        }
+    }
+
+    // tabela com cada operação repetida pelo seu peso: sortear é só um índice aleatório
+    private static Operacao[] montarSorteio(Map<Operacao, Integer> mix) {
+        List<Operacao> tabela = new ArrayList<>();
+        mix.forEach((operacao, peso) -> {
+            for (int i = 0; i < peso; i++) {
+                tabela.add(operacao);
+            }
+        });
+        if (tabela.isEmpty()) {
+            throw new IllegalArgumentException("carga.mix sem nenhuma operação");
+        }
+        return tabela.toArray(Operacao[]::new);
+    }
+}
@@ -0,0 +1,40 @@
+package br.com.fiap.ms_pagamento.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+// Cache local (Caffeine) na frente do PagamentoService.findById.
+// Ordem antes do @Transactional: um cache hit nem abre transação.
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE + 10)
+public class CacheConfiguration {
+
+    public static final String PAGAMENTOS = "pagamentos";
+
+    @Value("${pagamento.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${pagamento.cache.ttl:30s}")
+    private Duration ttl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(PAGAMENTOS);
+        // recordStats alimenta as métricas cache.gets (hit/miss), cache.evictions e cache.size no Actuator
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        // dentro de uma transação, put/evict só acontecem depois do commit (rollback não suja o cache)
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,188 @@
+package br.com.fiap.ms_pagamento.config;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// AES-GCM para campos sensíveis. Valor gravado: "<id da chave>:" + Base64(iv de 12 bytes + texto cifrado + tag).
+// O id da chave em cada valor permite rotacionar: valores novos usam a chave ativa e os antigos continuam
+// legíveis enquanto a chave deles estiver configurada. Quem chama passa o AAD (dados autenticados, não cifrados):
+// um valor só decifra com o mesmo AAD usado para cifrá-lo. decifrar não aceita texto puro - quem tem dados
+// legados confere cifrado() antes e decide o que fazer com eles.
+// Cipher.getInstance é caro (busca no provider, várias alocações): as instâncias ficam num pool e são
+// reaproveitadas. Pool e não ThreadLocal: o número de instâncias acompanha as chamadas simultâneas, não as
+// threads que um dia cifraram algo (até server.tomcat.threads.max, mais as de agendamento).
+// impressao é para dados sensíveis que só precisam ser comparados, nunca lidos de volta: HMAC-SHA256 com uma chave
+// derivada de cada chave AES (nunca a própria chave AES), no mesmo formato "<id da chave>:" + hex.
+public class CifraAesGcm {
+
+    private static final String TRANSFORMACAO = "AES/GCM/NoPadding";
+    private static final int TAMANHO_IV = 12;
+    private static final int TAMANHO_TAG = 16;
+    private static final char SEPARADOR = ':';
+    private static final String HMAC = "HmacSHA256";
+    private static final byte[] PROPOSITO_IMPRESSAO = "impressao".getBytes(StandardCharsets.UTF_8);
+
+    private final Map<String, SecretKey> chaves;
+    private final String idChaveAtiva;
+    private final SecretKey chaveAtiva;
+    private final Map<String, SecretKey> chavesImpressao = new HashMap<>();
+    private final Queue<Cipher> pool = new ConcurrentLinkedQueue<>();
+    private final SecureRandom random = new SecureRandom();
+
+    public CifraAesGcm(Map<String, byte[]> chaves, String idChaveAtiva) {
+        this.chaves = new HashMap<>();
+        chaves.forEach((id, chave) -> {
+            if (id.indexOf(SEPARADOR) >= 0) {
+                throw new IllegalArgumentException("Id de chave não pode conter '" + SEPARADOR + "': " + id);
+            }
+            if (chave.length != 16 && chave.length != 24 && chave.length != 32) {
+                throw new IllegalArgumentException("Chave " + id + " deve ter 128, 192 ou 256 bits");
+            }
+            this.chaves.put(id, new SecretKeySpec(chave, "AES"));
+            byte[] derivada = hmac(new SecretKeySpec(chave, HMAC), PROPOSITO_IMPRESSAO);
+            this.chavesImpressao.put(id, new SecretKeySpec(derivada, HMAC));
+        });
+        this.idChaveAtiva = idChaveAtiva;
+        this.chaveAtiva = this.chaves.get(idChaveAtiva);
+        if (chaveAtiva == null) {
+            throw new IllegalArgumentException("Chave ativa " + idChaveAtiva + " não configurada");
+        }
+    }
+
+    // pagamento.criptografia.chave-ativa e pagamento.criptografia.chaves.<id> (Base64)
+    public static CifraAesGcm dePropriedades(Environment environment) {
+        Map<String, String> configuradas = Binder.get(environment)
+                .bind("pagamento.criptografia.chaves", Bindable.mapOf(String.class, String.class))
+                .orElseThrow(() -> new IllegalStateException("Nenhuma chave em pagamento.criptografia.chaves"));
+        Map<String, byte[]> chaves = new HashMap<>();
+        configuradas.forEach((id, chave) -> {
+            if (chave == null || chave.isBlank()) {
+                throw new IllegalStateException("Chave " + id + " vazia em pagamento.criptografia.chaves - "
+                        + "configure-a pelo ambiente (PAGAMENTO_CHAVE_" + id.toUpperCase() + ")");
+            }
+            chaves.put(id, Base64.getDecoder().decode(chave));
+        });
+        return new CifraAesGcm(chaves, environment.getRequiredProperty("pagamento.criptografia.chave-ativa"));
+    }
+
+    public String cifrar(String texto, byte[] aad) {
+        if (texto == null) {
+            return null;
+        }
+        byte[] claro = texto.getBytes(StandardCharsets.UTF_8);
+        byte[] iv = new byte[TAMANHO_IV];
+        random.nextBytes(iv);
+        // iv, texto cifrado e tag num único array, que vai direto para o Base64
+        byte[] saida = new byte[TAMANHO_IV + claro.length + TAMANHO_TAG];
+        System.arraycopy(iv, 0, saida, 0, TAMANHO_IV);
+        Cipher cipher = obter();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, chaveAtiva, new GCMParameterSpec(TAMANHO_TAG * 8, iv));
+            cipher.updateAAD(aad);
+            cipher.doFinal(claro, 0, claro.length, saida, TAMANHO_IV);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Falha ao cifrar o campo", e);
+        } finally {
+            pool.offer(cipher);
+        }
+        return idChaveAtiva + SEPARADOR + Base64.getEncoder().encodeToString(saida);
+    }
+
+    public String decifrar(String valor, byte[] aad) {
+        if (valor == null) {
+            return null;
+        }
+        int separador = valor.indexOf(SEPARADOR);
+        if (separador < 0) {
+            throw new IllegalArgumentException("Valor não está no formato <id da chave>:<Base64>");
+        }
+        String idChave = valor.substring(0, separador);
+        SecretKey chave = chaves.get(idChave);
+        if (chave == null) {
+            throw new IllegalStateException("Chave " + idChave + " não configurada para decifrar o campo");
+        }
+        byte[] dados = Base64.getDecoder().decode(valor.substring(separador + 1));
+        Cipher cipher = obter();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, chave, new GCMParameterSpec(TAMANHO_TAG * 8, dados, 0, TAMANHO_IV));
+            cipher.updateAAD(aad);
+            return new String(cipher.doFinal(dados, TAMANHO_IV, dados.length - TAMANHO_IV), StandardCharsets.UTF_8);
+        } catch (AEADBadTagException e) {
+            throw new IllegalStateException("Campo cifrado adulterado, com a chave errada ou de outra linha/coluna", e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Falha ao decifrar o campo", e);
+        } finally {
+            pool.offer(cipher);
+        }
+    }
+
+    // Mesmos dados, mesma chave: mesma impressão. Sem a chave, quem tem só o banco não testa candidatos offline
+    public String impressao(byte[] dados) {
+        return idChaveAtiva + SEPARADOR + HexFormat.of().formatHex(hmac(chavesImpressao.get(idChaveAtiva), dados));
+    }
+
+    // Confere com a chave gravada na impressão: uma impressão anterior a uma rotação continua conferindo
+    // enquanto a chave dela estiver configurada
+    public boolean confereImpressao(String impressao, byte[] dados) {
+        int separador = impressao.indexOf(SEPARADOR);
+        SecretKey chave = separador > 0 ? chavesImpressao.get(impressao.substring(0, separador)) : null;
+        if (chave == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(HexFormat.of().parseHex(impressao.substring(separador + 1)), hmac(chave, dados));
+    }
+
+    // true quando o valor foi gravado por cifrar (prefixo "<id da chave>:"); texto puro legado não tem o prefixo
+    public boolean cifrado(String valor) {
+        return valor != null && valor.indexOf(SEPARADOR) > 0;
+    }
+
+    // true quando o valor já está cifrado com a chave ativa - os demais são reescritos pela recifragem
+    public boolean cifradoComChaveAtiva(String valor) {
+        return valor != null && valor.startsWith(idChaveAtiva) && valor.indexOf(SEPARADOR) == idChaveAtiva.length();
+    }
+
+    public String getIdChaveAtiva() {
+        return idChaveAtiva;
+    }
+
+    private static byte[] hmac(SecretKey chave, byte[] dados) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(chave);
+            return mac.doFinal(dados);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC + " indisponível", e);
+        }
+    }
+
+    private Cipher obter() {
+        Cipher cipher = pool.poll();
+        if (cipher != null) {
+            return cipher;
+        }
+        try {
+            return Cipher.getInstance(TRANSFORMACAO);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(TRANSFORMACAO + " indisponível", e);
+        }
+    }
+}
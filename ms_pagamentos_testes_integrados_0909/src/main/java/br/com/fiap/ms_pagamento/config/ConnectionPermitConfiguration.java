@@ -0,0 +1,39 @@
+package br.com.fiap.ms_pagamento.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Modo opcional: pagamento.datasource.permissoes.enabled=true coloca o ConnectionPermitDataSource na frente do
+// DataSource principal. O bean "dataSource" é o pool Hikari do Spring Boot ou, com a réplica ligada, o
+// LazyConnectionDataSourceProxy do ReplicaDataSourceConfiguration - nesse caso o limite vale para os dois pools
+// juntos e a permissão é pega no início da transação.
+@Configuration
+@ConditionalOnProperty(name = "pagamento.datasource.permissoes.enabled", havingValue = "true")
+public class ConnectionPermitConfiguration {
+
+    @Bean
+    public static BeanPostProcessor connectionPermitBeanPostProcessor(Environment environment) {
+        int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        int maxConcurrency = environment.getProperty("pagamento.datasource.permissoes.max-concorrencia",
+                Integer.class, poolSize);
+        Duration espera = environment.getProperty("pagamento.datasource.permissoes.espera", Duration.class,
+                Duration.ofSeconds(2));
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // só o DataSource principal: os pools atrás do roteamento da réplica ficam sem semáforo próprio
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return new ConnectionPermitDataSource(dataSource, maxConcurrency, espera);
+                }
+                return bean;
+            }
+        };
+    }
+}
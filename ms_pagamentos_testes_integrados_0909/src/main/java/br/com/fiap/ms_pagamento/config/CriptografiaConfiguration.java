@@ -0,0 +1,18 @@
+package br.com.fiap.ms_pagamento.config;
+
+import br.com.fiap.ms_pagamento.model.CampoCriptografadoInterceptor;
+import br.com.fiap.ms_pagamento.service.CriptografiaService;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Registra o interceptor que cifra o cartão na gravação (um por SessionFactory, sem estado)
+@Configuration
+public class CriptografiaConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer criptografiaInterceptor(CriptografiaService criptografia) {
+        return properties -> properties.put(AvailableSettings.INTERCEPTOR, new CampoCriptografadoInterceptor(criptografia));
+    }
+}
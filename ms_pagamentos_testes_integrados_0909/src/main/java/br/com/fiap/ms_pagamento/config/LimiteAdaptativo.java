@@ -0,0 +1,132 @@
+package br.com.fiap.ms_pagamento.config;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Limite de concorrência AIMD guiado pela latência observada, como o controle de congestionamento do TCP:
+// - aumento aditivo: cada chamada rápida com o limite em uso soma 1/limite (≈ +1 a cada "limite" chamadas)
+// - redução multiplicativa: latência acima do alvo (ou sobrecarga do banco) multiplica o limite pelo fator,
+//   no máximo uma vez por "janela" - chamadas admitidas antes da última redução não reduzem de novo.
+// Acima do limite há uma fila curta com espera máxima; fila cheia ou espera esgotada = rejeição imediata.
+public class LimiteAdaptativo {
+
+    private final int minimo;
+    private final int maximo;
+    private final double fatorReducao;
+    private final long latenciaAlvoNanos;
+    private final int capacidadeFila;
+    private final long esperaFilaNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition vagaLiberada = lock.newCondition();
+
+    private double limite;
+    private int emVoo;
+    private int aguardando;
+    private long ultimaReducao;
+
+    public LimiteAdaptativo(int inicial, int minimo, int maximo, double fatorReducao, long latenciaAlvoNanos,
+                            int capacidadeFila, long esperaFilaNanos) {
+        if (minimo < 1 || minimo > inicial || inicial > maximo) {
+            throw new IllegalArgumentException("Esperado 1 <= mínimo <= inicial <= máximo");
+        }
+        if (fatorReducao <= 0 || fatorReducao >= 1) {
+            throw new IllegalArgumentException("Fator de redução deve estar entre 0 e 1");
+        }
+        this.limite = inicial;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.fatorReducao = fatorReducao;
+        this.latenciaAlvoNanos = latenciaAlvoNanos;
+        this.capacidadeFila = capacidadeFila;
+        this.esperaFilaNanos = esperaFilaNanos;
+        this.ultimaReducao = System.nanoTime();
+    }
+
+    // true = admitida (chamar liberar depois); false = rejeitada
+    public boolean adquirir() throws InterruptedException {
+        lock.lock();
+        try {
+            // sem furar a fila: só entra direto quem não encontra ninguém esperando
+            if (aguardando == 0 && emVoo < vagas()) {
+                emVoo++;
+                return true;
+            }
+            if (aguardando >= capacidadeFila) {
+                return false;
+            }
+            aguardando++;
+            try {
+                long restante = esperaFilaNanos;
+                while (emVoo >= vagas()) {
+                    if (restante <= 0) {
+                        return false;
+                    }
+                    restante = vagaLiberada.awaitNanos(restante);
+                }
+                emVoo++;
+                return true;
+            } finally {
+                aguardando--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // inicio = System.nanoTime() logo depois de adquirir; sobrecarga = o banco recusou ou estourou o tempo
+    public void liberar(long inicio, boolean sobrecarga) {
+        liberar(inicio, System.nanoTime(), sobrecarga);
+    }
+
+    void liberar(long inicio, long fim, boolean sobrecarga) {
+        lock.lock();
+        try {
+            boolean emUso = emVoo * 2 >= limite;
+            emVoo--;
+            if (sobrecarga || fim - inicio > latenciaAlvoNanos) {
+                if (inicio - ultimaReducao > 0) {
+                    limite = Math.max(minimo, limite * fatorReducao);
+                    ultimaReducao = fim;
+                }
+            } else if (emUso) {
+                // limite ocioso não cresce: senão um período calmo levaria direto ao máximo
+                limite = Math.min(maximo, limite + 1 / limite);
+            }
+            vagaLiberada.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimite() {
+        lock.lock();
+        try {
+            return vagas();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getEmVoo() {
+        lock.lock();
+        try {
+            return emVoo;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getAguardando() {
+        lock.lock();
+        try {
+            return aguardando;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int vagas() {
+        return (int) limite;
+    }
+}
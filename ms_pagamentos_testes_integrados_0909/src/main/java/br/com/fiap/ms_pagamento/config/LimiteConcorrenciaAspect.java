@@ -0,0 +1,124 @@
+package br.com.fiap.ms_pagamento.config;
+
+import br.com.fiap.ms_pagamento.service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+// Limite adaptativo de chamadas simultâneas ao PagamentoService (LimiteAdaptativo), para o excesso virar
+// 503 rápido em vez de se acumular atrás do pool de conexões.
+// Só as operações curtas de requisição/resposta (OPERACOES_CURTAS): a latência delas é o sinal que ajusta o
+// limite. exportAll (minutos de streaming), insertAll e deleteAll (até MAX_BATCH_SIZE itens) ocupariam uma vaga
+// por muito tempo e derrubariam o limite das demais; resumo não usa o banco.
+// Depois das métricas e do cache (acertos no cache não ocupam vaga nem entram na latência) e antes do
+// @Transactional. Chamadas já dentro de uma transação (group commit, idempotência) passam direto:
+// a conexão já está com elas e quem abriu a transação já passou pelo limite ou tem fila própria.
+// Métricas: pagamento.concorrencia.limite, .em-voo, .fila e .rejeitadas (por operação).
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@ConditionalOnProperty(name = "pagamento.concorrencia.enabled", havingValue = "true", matchIfMissing = true)
+public class LimiteConcorrenciaAspect {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${pagamento.concorrencia.limite-inicial:10}")
+    private int inicial;
+
+    @Value("${pagamento.concorrencia.limite-minimo:2}")
+    private int minimo;
+
+    @Value("${pagamento.concorrencia.limite-maximo:50}")
+    private int maximo;
+
+    @Value("${pagamento.concorrencia.fator-reducao:0.9}")
+    private double fatorReducao;
+
+    @Value("${pagamento.concorrencia.latencia-alvo:50ms}")
+    private Duration latenciaAlvo;
+
+    @Value("${pagamento.concorrencia.fila:20}")
+    private int fila;
+
+    @Value("${pagamento.concorrencia.espera-fila:50ms}")
+    private Duration esperaFila;
+
+    static final String OPERACOES_CURTAS =
+            "execution(public * br.com.fiap.ms_pagamento.service.PagamentoService.findAll(..)) || " +
+            "execution(public * br.com.fiap.ms_pagamento.service.PagamentoService.findById(..)) || " +
+            "execution(public * br.com.fiap.ms_pagamento.service.PagamentoService.findByPedidoId(..)) || " +
+            "execution(public * br.com.fiap.ms_pagamento.service.PagamentoService.findByPedidoIds(..)) || " +
+            "execution(public * br.com.fiap.ms_pagamento.service.PagamentoService.findVersao(..)) || " +
+            "execution(public * br.com.fiap.ms_pagamento.service.PagamentoService.insert(..)) || " +
+            "execution(public * br.com.fiap.ms_pagamento.service.PagamentoService.update(..)) || " +
+            "execution(public * br.com.fiap.ms_pagamento.service.PagamentoService.updateStatus(..)) || " +
+            "execution(public * br.com.fiap.ms_pagamento.service.PagamentoService.delete(..))";
+
+    private LimiteAdaptativo limite;
+
+    @PostConstruct
+    void iniciar() {
+        limite = new LimiteAdaptativo(inicial, minimo, maximo, fatorReducao, latenciaAlvo.toNanos(), fila,
+                esperaFila.toNanos());
+        Gauge.builder("pagamento.concorrencia.limite", limite, LimiteAdaptativo::getLimite)
+                .description("Limite atual de chamadas simultâneas ao PagamentoService")
+                .register(registry);
+        Gauge.builder("pagamento.concorrencia.em-voo", limite, LimiteAdaptativo::getEmVoo)
+                .description("Chamadas ao PagamentoService em andamento")
+                .register(registry);
+        Gauge.builder("pagamento.concorrencia.fila", limite, LimiteAdaptativo::getAguardando)
+                .description("Chamadas esperando vaga")
+                .register(registry);
+    }
+
+    @Around(OPERACOES_CURTAS)
+    public Object limitar(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        boolean admitida;
+        try {
+            admitida = limite.adquirir();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitida = false;
+        }
+        if (!admitida) {
+            Counter.builder("pagamento.concorrencia.rejeitadas")
+                    .tag("operacao", joinPoint.getSignature().getName())
+                    .register(registry)
+                    .increment();
+            throw new ServiceUnavailableException("Serviço sobrecarregado, tente novamente");
+        }
+        long inicio = System.nanoTime();
+        boolean sobrecarga = false;
+        try {
+            return joinPoint.proceed();
+        } catch (TransientDataAccessException | CannotCreateTransactionException e) {
+            sobrecarga = true;
+            throw e;
+        } finally {
+            limite.liberar(inicio, sobrecarga);
+        }
+    }
+
+    LimiteAdaptativo getLimite() {
+        return limite;
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.fiap.ms_pagamento.config;
+
+import br.com.fiap.ms_pagamento.service.ArquivoEventoSink;
+import br.com.fiap.ms_pagamento.service.EventoSink;
+import br.com.fiap.ms_pagamento.service.MemoriaEventoSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+// Sinks locais do outbox, escolhidos por pagamento.outbox.sink (memoria | arquivo).
+// Um EventoSink declarado em outra configuração (ex.: broker) tem precedência sobre os dois.
+@Configuration
+public class OutboxConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(EventoSink.class)
+    @ConditionalOnProperty(name = "pagamento.outbox.sink", havingValue = "arquivo")
+    public EventoSink arquivoEventoSink(@Value("${pagamento.outbox.arquivo:eventos.ndjson}") Path arquivo,
+                                        ObjectMapper objectMapper) {
+        return new ArquivoEventoSink(arquivo, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(EventoSink.class)
+    @ConditionalOnProperty(name = "pagamento.outbox.sink", havingValue = "memoria", matchIfMissing = true)
+    public EventoSink memoriaEventoSink(@Value("${pagamento.outbox.memoria.capacidade:10000}") int capacidade) {
+        return new MemoriaEventoSink(capacidade);
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.fiap.ms_pagamento.config;
+
+import br.com.fiap.ms_pagamento.dto.CursorPageDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Métricas de todas as operações públicas do PagamentoService (expostas em /actuator/prometheus):
+// - pagamento.service: latência com histograma (p50/p95/p99), tags operacao e excecao
+// - pagamento.service.erros: contador por operação e tipo de exceção
+// - pagamento.service.findall.linhas: quantidade de linhas devolvidas por findAll
+// Primeiro da cadeia (antes do cache e do @Transactional): mede o tempo que o chamador realmente espera.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PagamentoServiceMetricsAspect {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Around("execution(public * br.com.fiap.ms_pagamento.service.PagamentoService.*(..))")
+    public Object medir(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operacao = joinPoint.getSignature().getName();
+        String excecao = "none";
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof CursorPageDTO<?> page) {
+                registry.summary("pagamento.service.findall.linhas").record(page.getContent().size());
+            }
+            return result;
+        } catch (Throwable e) {
+            excecao = e.getClass().getSimpleName();
+            Counter.builder("pagamento.service.erros")
+                    .tag("operacao", operacao)
+                    .tag("excecao", excecao)
+                    .register(registry)
+                    .increment();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("pagamento.service")
+                    .description("Latência das operações do PagamentoService")
+                    .tag("operacao", operacao)
+                    .tag("excecao", excecao)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+}
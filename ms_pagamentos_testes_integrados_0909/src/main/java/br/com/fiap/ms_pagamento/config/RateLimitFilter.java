@@ -0,0 +1,168 @@
+package br.com.fiap.ms_pagamento.config;
+
+import br.com.fiap.ms_pagamento.dto.CustomErrorDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Limite de requisições por cliente (header pagamento.rate-limit.header ou IP) e por regra de rota.
+// Cada par regra/cliente tem um TokenBucket; sem ficha a resposta é 429 com Retry-After, antes de
+// chegar ao controller e ao pool de conexões. Baldes cheios (ociosos) são removidos pela limpeza; acima de
+// max-chaves os clientes novos dividem um balde de transbordo por regra, para a memória não crescer sem limite.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "pagamento.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String TRANSBORDO = "*";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // o header deve ser preenchido pelo gateway; vindo direto do cliente ele escolheria o próprio balde
+    @Value("${pagamento.rate-limit.header:X-Client-Id}")
+    private String header;
+
+    @Value("${pagamento.rate-limit.max-chaves:100000}")
+    private int maxChaves;
+
+    private final long inicio = System.nanoTime();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+    private final Map<String, TokenBucket> baldes = new ConcurrentHashMap<>();
+    private final List<Regra> regras = new ArrayList<>();
+
+    // pagamento.rate-limit.regras.<nome>.{metodos,caminho,capacidade,por-segundo}; vale a primeira que casar
+    public record Regra(String nome, List<String> metodos, String caminho, int capacidade, int porSegundo) {
+    }
+
+    record Limite(List<String> metodos, String caminho, int capacidade, int porSegundo) {
+    }
+
+    @PostConstruct
+    void iniciar() {
+        Binder.get(environment)
+                .bind("pagamento.rate-limit.regras", Bindable.mapOf(String.class, Limite.class))
+                .orElse(Map.of())
+                .forEach((nome, limite) -> {
+                    // valida capacidade e taxa na subida, não na primeira requisição
+                    new TokenBucket(limite.capacidade(), limite.porSegundo(), 0);
+                    regras.add(new Regra(nome, limite.metodos(), limite.caminho(), limite.capacidade(),
+                            limite.porSegundo()));
+                });
+        Gauge.builder("pagamento.rate-limit.baldes", baldes, Map::size)
+                .description("Baldes de clientes em memória")
+                .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Regra regra = regra(request);
+        if (regra == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long agora = agoraMs();
+        long esperaMs = balde(regra, cliente(request), agora).tentarConsumir(agora);
+        if (esperaMs == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        rejeitar(regra, esperaMs, request, response);
+    }
+
+    @Scheduled(fixedDelayString = "${pagamento.rate-limit.limpeza-ms:60000}")
+    public void removerOciosos() {
+        long agora = agoraMs();
+        baldes.values().removeIf(balde -> balde.cheio(agora));
+    }
+
+    int quantidadeDeBaldes() {
+        return baldes.size();
+    }
+
+    private TokenBucket balde(Regra regra, String cliente, long agora) {
+        String chave = regra.nome() + '|' + cliente;
+        TokenBucket balde = baldes.get(chave);
+        if (balde != null) {
+            return balde;
+        }
+        if (baldes.size() >= maxChaves) {
+            chave = regra.nome() + '|' + TRANSBORDO;
+        }
+        return baldes.computeIfAbsent(chave, k -> new TokenBucket(regra.capacidade(), regra.porSegundo(), agora));
+    }
+
+    private Regra regra(HttpServletRequest request) {
+        String caminho = urlPathHelper.getPathWithinApplication(request);
+        for (Regra regra : regras) {
+            if ((regra.metodos() == null || regra.metodos().contains(request.getMethod()))
+                    && pathMatcher.match(regra.caminho(), caminho)) {
+                return regra;
+            }
+        }
+        return null;
+    }
+
+    private String cliente(HttpServletRequest request) {
+        String cliente = request.getHeader(header);
+        return cliente == null || cliente.isBlank() ? request.getRemoteAddr() : cliente;
+    }
+
+    private void rejeitar(Regra regra, long esperaMs, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Counter.builder("pagamento.rate-limit.rejeitadas")
+                .tag("regra", regra.nome())
+                .register(registry)
+                .increment();
+        long segundos = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(esperaMs + 999));
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+        CustomErrorDTO err = new CustomErrorDTO(Instant.now().toString(), status.value(),
+                "Limite de requisições excedido, tente novamente em " + segundos + "s", request.getRequestURI());
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(segundos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), err);
+    }
+
+    private long agoraMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.fiap.ms_pagamento.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Modo opcional com réplica de leitura: pagamento.datasource.replica.enabled=true.
+// Dois pools Hikari (primario com spring.datasource.*, replica com pagamento.datasource.replica.*) atrás do
+// ReplicaRoutingDataSource. O bean "dataSource" usado pelo JPA é o LazyConnectionDataSourceProxy na frente dele.
+@Configuration
+@ConditionalOnProperty(name = "pagamento.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfiguration {
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("pagamento.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${pagamento.datasource.replica.url}") String url,
+                                              @Value("${pagamento.datasource.replica.username:}") String username,
+                                              @Value("${pagamento.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username.isEmpty() ? properties.determineUsername() : username)
+                .password(password.isEmpty() ? properties.determinePassword() : password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primarioDataSource, HikariDataSource replicaDataSource,
+                                 @Value("${pagamento.datasource.replica.atraso-maximo:2s}") Duration atrasoMaximo,
+                                 @Value("${pagamento.datasource.replica.consulta-atraso:SELECT 0}") String consultaAtraso,
+                                 MeterRegistry registry) {
+        routingDataSource = new ReplicaRoutingDataSource(primarioDataSource, replicaDataSource, atrasoMaximo,
+                consultaAtraso);
+        Gauge.builder("pagamento.datasource.replica.disponivel", routingDataSource, r -> r.isReplicaDisponivel() ? 1 : 0)
+                .description("1 enquanto as leituras podem ir para a réplica")
+                .register(registry);
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${pagamento.datasource.replica.intervalo-verificacao-ms:1000}")
+    public void verificarReplica() {
+        if (routingDataSource != null) {
+            routingDataSource.verificarAtraso();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package br.com.fiap.ms_pagamento.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.WebUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+
+// Transações readOnly vão para a réplica, o resto para o primário.
+// Precisa ficar atrás de um LazyConnectionDataSourceProxy: a conexão só é escolhida no primeiro comando SQL,
+// quando o flag readOnly da transação já está definido.
+// A réplica só é usada enquanto o atraso medido (consultaAtraso) estiver dentro de atrasoMaximo.
+// Leitura das próprias escritas: depois de um commit no primário, o mesmo cliente continua lendo do primário
+// por atrasoMaximo - na mesma requisição (atributo) e nas seguintes (cookie).
+// Leituras que alimentam um cache (cache "pagamentos" do Spring, cache de consultas do Hibernate) chamam
+// lerDoPrimario: um valor atrasado da réplica ficaria no cache bem depois de a réplica alcançar o primário.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String COOKIE_ESCRITA = "pagamento-escrita";
+
+    private static final String ATRIBUTO_ESCRITA = ReplicaRoutingDataSource.class.getName() + ".escrita";
+
+    private static final String RECURSO_PRIMARIO = ReplicaRoutingDataSource.class.getName() + ".primario";
+
+    enum Destino { PRIMARIO, REPLICA }
+
+    private final DataSource replica;
+    private final Duration atrasoMaximo;
+    private final String consultaAtraso;
+
+    private volatile boolean replicaDisponivel = true;
+
+    public ReplicaRoutingDataSource(DataSource primario, DataSource replica, Duration atrasoMaximo, String consultaAtraso) {
+        this.replica = replica;
+        this.atrasoMaximo = atrasoMaximo;
+        this.consultaAtraso = consultaAtraso;
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registrarEscrita();
+            return Destino.PRIMARIO;
+        }
+        if (!replicaDisponivel || TransactionSynchronizationManager.hasResource(RECURSO_PRIMARIO) || escritaRecente()) {
+            return Destino.PRIMARIO;
+        }
+        return Destino.REPLICA;
+    }
+
+    // Transação readOnly atual lê do primário (chamar antes do primeiro comando SQL). Sem réplica configurada,
+    // ou fora de uma transação, não faz nada
+    public static void lerDoPrimario() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(RECURSO_PRIMARIO)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(RECURSO_PRIMARIO, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RECURSO_PRIMARIO);
+            }
+        });
+    }
+
+    // Roda a consulta de atraso na réplica (segundos). Erro ou atraso acima do limite: leituras voltam para o primário
+    public void verificarAtraso() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(consultaAtraso)) {
+            if (!resultSet.next()) {
+                replicaDisponivel = false;
+                return;
+            }
+            double atrasoSegundos = resultSet.getDouble(1);
+            replicaDisponivel = !resultSet.wasNull() && atrasoSegundos * 1000 <= atrasoMaximo.toMillis();
+        } catch (SQLException e) {
+            replicaDisponivel = false;
+        }
+    }
+
+    public boolean isReplicaDisponivel() {
+        return replicaDisponivel;
+    }
+
+    // uma vez por transação: depois do commit marca a requisição (se houver) como "acabou de escrever"
+    private void registrarEscrita() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                marcarEscrita();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReplicaRoutingDataSource.this);
+            }
+        });
+    }
+
+    private void marcarEscrita() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos)) {
+            return;
+        }
+        atributos.getRequest().setAttribute(ATRIBUTO_ESCRITA, Boolean.TRUE);
+        HttpServletResponse response = atributos.getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE_ESCRITA, Long.toString(System.currentTimeMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, atrasoMaximo.toSeconds() + 1));
+            response.addCookie(cookie);
+        }
+    }
+
+    private boolean escritaRecente() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos)) {
+            return false;
+        }
+        HttpServletRequest request = atributos.getRequest();
+        if (request.getAttribute(ATRIBUTO_ESCRITA) != null) {
+            return true;
+        }
+        Cookie cookie = WebUtils.getCookie(request, COOKIE_ESCRITA);
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            return System.currentTimeMillis() - Long.parseLong(cookie.getValue()) < atrasoMaximo.toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package br.com.fiap.ms_pagamento.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket sem lock: fichas e instante da última recarga ficam num único long, atualizado com CAS.
+// 40 bits de instante (ms desde a criação do RateLimitFilter, ~34 anos) | 24 bits de fichas em milésimos
+// (até 16 mil fichas). Com a recarga em milésimos, taxa de N por segundo = N milésimos por ms, sem arredondamento.
+public class TokenBucket {
+
+    static final int BITS_FICHAS = 24;
+    static final long MASCARA_FICHAS = (1L << BITS_FICHAS) - 1;
+    private static final long MILESIMOS = 1000;
+
+    private final long capacidade;   // milésimos de ficha
+    private final long recargaPorMs; // milésimos de ficha por ms
+    private final AtomicLong estado;
+
+    public TokenBucket(int capacidade, int porSegundo, long agoraMs) {
+        if (capacidade <= 0 || capacidade * MILESIMOS > MASCARA_FICHAS) {
+            throw new IllegalArgumentException("Capacidade deve estar entre 1 e " + MASCARA_FICHAS / MILESIMOS);
+        }
+        if (porSegundo <= 0) {
+            throw new IllegalArgumentException("Recarga por segundo deve ser positiva");
+        }
+        this.capacidade = capacidade * MILESIMOS;
+        this.recargaPorMs = porSegundo;
+        this.estado = new AtomicLong(empacotar(agoraMs, this.capacidade));
+    }
+
+    // 0 quando a ficha foi consumida; senão, quantos ms faltam para haver uma ficha
+    public long tentarConsumir(long agoraMs) {
+        while (true) {
+            long atual = estado.get();
+            long fichas = disponiveis(atual, agoraMs);
+            if (fichas < MILESIMOS) {
+                return (MILESIMOS - fichas + recargaPorMs - 1) / recargaPorMs;
+            }
+            // outra thread pode ter gravado um instante maior: o relógio do balde nunca volta
+            long novo = empacotar(Math.max(atual >>> BITS_FICHAS, agoraMs), fichas - MILESIMOS);
+            if (estado.compareAndSet(atual, novo)) {
+                return 0;
+            }
+        }
+    }
+
+    // balde cheio é igual a um balde novo: pode ser descartado sem mudar o comportamento
+    public boolean cheio(long agoraMs) {
+        return disponiveis(estado.get(), agoraMs) >= capacidade;
+    }
+
+    private long disponiveis(long estado, long agoraMs) {
+        long decorrido = Math.max(0, agoraMs - (estado >>> BITS_FICHAS));
+        // limita o decorrido antes de multiplicar: depois de "capacidade" ms qualquer taxa já encheu o balde
+        return Math.min(capacidade, (estado & MASCARA_FICHAS) + Math.min(decorrido, capacidade) * recargaPorMs);
+    }
+
+    private static long empacotar(long instanteMs, long fichas) {
+        return (instanteMs << BITS_FICHAS) | fichas;
+    }
+}
@@ -2,13 +2,40 @@ package br.com.fiap.ms_pagamento.config;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
 
 import static org.springframework.data.web.config.EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO;
 
+// Smile (application/x-jackson-smile) e CBOR (application/cbor) para chamadas internas vêm dos conversores padrão
+// do Spring MVC, registrados porque jackson-dataformat-smile/cbor estão no classpath: já ficam depois do JSON (a
+// resposta para Accept: */*) e usam o mesmo Jackson2ObjectMapperBuilder do JSON (módulos, campos desconhecidos)
 @Configuration
 @EnableWebMvc
 @EnableSpringDataWebSupport(pageSerializationMode = VIA_DTO)
-public class WebConfiguration {
+public class WebConfiguration implements WebMvcConfigurer {
+
+    // Timeout (ms, Long) de uma requisição assíncrona específica. O handler grava o atributo antes de retornar o
+    // StreamingResponseBody e o interceptor o aplica antes do startAsync; sem ele vale o padrão do Tomcat (30s)
+    public static final String TIMEOUT_ASYNC = WebConfiguration.class.getName() + ".timeoutAsync";
 
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                if (request.getAttribute(TIMEOUT_ASYNC, RequestAttributes.SCOPE_REQUEST) instanceof Long timeout
+                        && request instanceof AsyncWebRequest asyncRequest) {
+                    asyncRequest.setTimeout(timeout);
+                }
+            }
+        });
+    }
 }
@@ -1,43 +1,150 @@
 package br.com.fiap.ms_pagamento.controller;
 
+import br.com.fiap.ms_pagamento.config.WebConfiguration;
+import br.com.fiap.ms_pagamento.dto.CursorPageDTO;
 import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.dto.PagamentoFilterDTO;
+import br.com.fiap.ms_pagamento.dto.ResumoDTO;
+import br.com.fiap.ms_pagamento.dto.StatusDTO;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.service.GroupCommitWriter;
+import br.com.fiap.ms_pagamento.service.IdempotenciaService;
 import br.com.fiap.ms_pagamento.service.PagamentoService;
+import br.com.fiap.ms_pagamento.service.exception.PreconditionFailedException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 
 @RestController
 @RequestMapping("/pagamentos")
 public class PagamentoController {
 
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     @Autowired
     private PagamentoService service;
 
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    // identifica o dono da Idempotency-Key; preenchido pelo gateway, sem ele vale o IP
+    @Value("${pagamento.idempotencia.header-cliente:X-Client-Id}")
+    private String headerCliente;
+
+    // StreamingResponseBody roda como requisição assíncrona; o timeout padrão do Tomcat (30s) cortaria a exportação.
+    // Vale só para ela - as demais requisições assíncronas continuam com o padrão
+    @Value("${pagamento.export.timeout-ms:3600000}")
+    private long exportTimeoutMs;
+
+    // presente só com pagamento.group-commit.enabled=true
+    @Autowired(required = false)
+    private GroupCommitWriter groupCommitWriter;
+
+    // Paginação por cursor: o próximo cursor vai nos headers X-Next-Cursor e Link (rel="next")
+    // ETag fraco (SHA-256 dos ids e versões da página e do próximo cursor): com If-None-Match igual o Spring responde
+    // 304 sem serializar o corpo. Fraco porque JSON, Smile e CBOR da mesma página são representações diferentes com
+    // o mesmo valor; Vary: Accept para um cache intermediário não entregar um formato a quem pediu outro
     @GetMapping
-    public ResponseEntity<List<PagamentoDTO>> findAll() {
+    public ResponseEntity<List<PagamentoDTO>> findAll(@RequestParam(required = false) Long cursor,
+                                                      @RequestParam(defaultValue = "20") int size,
+                                                      PagamentoFilterDTO filtro) {
+
+        CursorPageDTO<PagamentoDTO> page = service.findAll(cursor, size, filtro);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag(page)).varyBy(HttpHeaders.ACCEPT);
+        if (page.getNextCursor() != null) {
+            String next = ServletUriComponentsBuilder
+                    .fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .toUriString();
+            response.header("X-Next-Cursor", String.valueOf(page.getNextCursor()))
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.getContent());
+    }
+
+    // Exportação completa em NDJSON, escrita em streaming (memória constante)
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(HttpServletRequest request) {
+        request.setAttribute(WebConfiguration.TIMEOUT_ASYNC, exportTimeoutMs);
+        StreamingResponseBody body = service::exportAll;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 
-        List<PagamentoDTO> dto = service.findAll();
-        return ResponseEntity.ok(dto);
+    // Quantidade e valor total por status e por forma de pagamento, servidos da memória
+    @GetMapping("/resumo")
+    public ResponseEntity<ResumoDTO> resumo() {
+        return ResponseEntity.ok(service.resumo());
     }
 
+    // ETag = versão do pagamento. Com If-None-Match só a versão é consultada; se ela não mudou, responde 304 sem corpo.
+    // O ETag continua forte (é o valor do If-Match no PUT), igual nos três formatos: o Vary: Accept separa no cache
     @GetMapping("/{id}")
-    public ResponseEntity<PagamentoDTO> findById(@PathVariable Long id) {
+    public ResponseEntity<PagamentoDTO> findById(@PathVariable Long id, @RequestHeader HttpHeaders headers) {
+        List<String> ifNoneMatch = headers.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            String etag = etag(service.findVersao(id));
+            if (matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+        }
         PagamentoDTO dto = service.findById(id);
-        return ResponseEntity.ok(dto);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (dto.getVersao() != null) {
+            response.eTag(etag(dto.getVersao()));
+        }
+        return response.body(dto);
+    }
+
+    // Pagamentos de um pedido, opcionalmente filtrados por status (?status=CRIADO)
+    @GetMapping("/pedido/{pedidoId}")
+    public ResponseEntity<List<PagamentoDTO>> findByPedidoId(@PathVariable Long pedidoId,
+                                                             @RequestParam(required = false) Status status) {
+        return ResponseEntity.ok(service.findByPedidoId(pedidoId, status));
+    }
+
+    // Vários pedidos de uma vez: GET /pagamentos/pedido?pedidoIds=1,2,3 - lista ordenada por pedido e id
+    @GetMapping("/pedido")
+    public ResponseEntity<List<PagamentoDTO>> findByPedidoIds(@RequestParam List<Long> pedidoIds,
+                                                              @RequestParam(required = false) Status status) {
+        return ResponseEntity.ok(service.findByPedidoIds(pedidoIds, status));
     }
 
+    // Com o header Idempotency-Key, repetições da mesma requisição (mesmo cliente e mesmo corpo) devolvem o 201
+    // original sem gravar de novo
+    // Sem o header e com o group commit ligado, a gravação entra no próximo lote do GroupCommitWriter
     @PostMapping
-    public ResponseEntity<PagamentoDTO> insert(@RequestBody @Valid PagamentoDTO dto) {
-        dto = service.insert(dto);
+    public ResponseEntity<PagamentoDTO> insert(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                               @RequestBody @Valid PagamentoDTO dto,
+                                               HttpServletRequest httpRequest) {
+        if (idempotencyKey == null) {
+            dto = groupCommitWriter != null ? groupCommitWriter.insert(dto) : service.insert(dto);
+        } else {
+            PagamentoDTO request = dto;
+            String cliente = httpRequest.getHeader(headerCliente);
+            if (cliente == null || cliente.isBlank()) {
+                cliente = httpRequest.getRemoteAddr();
+            }
+            dto = idempotenciaService.execute(cliente, idempotencyKey, request, () -> service.insert(request));
+        }
         URI uri = ServletUriComponentsBuilder
                 .fromCurrentRequest()
                 .path("/{id}")
@@ -47,12 +154,32 @@ public class PagamentoController {
         return ResponseEntity.created(uri).body(dto);
     }
 
+    // Inserção em lote - erros de validação voltam por item (ex.: "[3].valor") no formato ValidationErrorDTO
+    @PostMapping("/batch")
+    public ResponseEntity<List<PagamentoDTO>> insertAll(@RequestBody List<PagamentoDTO> dtos) {
+        List<PagamentoDTO> result = service.insertAll(dtos);
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    }
 
+    // If-Match com o ETag do GET: se o pagamento mudou desde então, responde 412 em vez de sobrescrever
+    // PUT, PATCH e DELETE de um pagamento arquivado respondem 409: o GET o devolve, mas o arquivo é só leitura
     @PutMapping("/{id}")
     public ResponseEntity<PagamentoDTO> update(@PathVariable @NotNull Long id,
+                                               @RequestHeader HttpHeaders headers,
                                                @RequestBody @Valid PagamentoDTO dto ){
-        dto = service.update(id, dto);
-        return ResponseEntity.ok(dto);
+        dto = service.update(id, dto, versaoEsperada(headers));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (dto.getVersao() != null) {
+            response.eTag(etag(dto.getVersao()));
+        }
+        return response.body(dto);
+    }
+
+    // Confirma ou cancela um pagamento em status CRIADO
+    @PatchMapping("/{id}/status")
+    public ResponseEntity<Void> updateStatus(@PathVariable Long id, @RequestBody @Valid StatusDTO dto) {
+        service.updateStatus(id, dto);
+        return ResponseEntity.noContent().build();
     }
 
     @DeleteMapping("/{id}")
@@ -60,4 +187,57 @@ public class PagamentoController {
         service.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Exclusão em massa: DELETE /pagamentos?ids=1,2,3 - a quantidade excluída volta no header X-Deleted-Count
+    @DeleteMapping
+    public ResponseEntity<Void> deleteAll(@RequestParam List<Long> ids) {
+        int removidos = service.deleteAll(ids);
+        return ResponseEntity.noContent().header("X-Deleted-Count", String.valueOf(removidos)).build();
+    }
+
+    private static String etag(Long versao) {
+        return "\"" + versao + "\"";
+    }
+
+    private static String etag(CursorPageDTO<PagamentoDTO> page) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer par = ByteBuffer.allocate(2 * Long.BYTES);
+            for (PagamentoDTO dto : page.getContent()) {
+                // versão nula (DTO sem versão) vira -1, que nenhum pagamento gravado tem
+                par.clear().putLong(dto.getId()).putLong(dto.getVersao() == null ? -1 : dto.getVersao());
+                digest.update(par.array());
+            }
+            // a mesma última página ganha próxima quando alguém insere depois dela: os headers de paginação mudam
+            par.clear().putLong(page.getNextCursor() == null ? -1 : page.getNextCursor());
+            digest.update(par.array(), 0, Long.BYTES);
+            return "W/\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Falha ao calcular o ETag da página", e);
+        }
+    }
+
+    // If-Match ausente ou "*": sem verificação de versão. If-Match usa comparação forte,
+    // então ETag fraco (W/) ou que não seja de versão nunca corresponde
+    private static Long versaoEsperada(HttpHeaders headers) {
+        List<String> ifMatch = headers.getIfMatch();
+        if (ifMatch.isEmpty() || ifMatch.contains("*")) {
+            return null;
+        }
+        if (ifMatch.size() == 1 && ifMatch.get(0).matches("\"\\d{1,18}\"")) {
+            String etag = ifMatch.get(0);
+            return Long.valueOf(etag.substring(1, etag.length() - 1));
+        }
+        throw new PreconditionFailedException("If-Match não corresponde à versão atual do pagamento");
+    }
+
+    // comparação fraca, como o RFC 9110 define para If-None-Match
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || candidate.replaceFirst("^W/", "").equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
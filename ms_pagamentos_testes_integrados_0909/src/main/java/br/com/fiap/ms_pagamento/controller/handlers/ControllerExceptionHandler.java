@@ -1,12 +1,24 @@
 package br.com.fiap.ms_pagamento.controller.handlers;
 
 import br.com.fiap.ms_pagamento.dto.CustomErrorDTO;
+import br.com.fiap.ms_pagamento.dto.FieldMessageDTO;
 import br.com.fiap.ms_pagamento.dto.ValidationErrorDTO;
+import br.com.fiap.ms_pagamento.service.exception.BatchValidationException;
 import br.com.fiap.ms_pagamento.service.exception.DatabaseException;
+import br.com.fiap.ms_pagamento.service.exception.IdempotencyKeyInProgressException;
+import br.com.fiap.ms_pagamento.service.exception.IdempotencyKeyMismatchException;
+import br.com.fiap.ms_pagamento.service.exception.InvalidIdempotencyKeyException;
+import br.com.fiap.ms_pagamento.service.exception.PagamentoArquivadoException;
+import br.com.fiap.ms_pagamento.service.exception.PreconditionFailedException;
 import br.com.fiap.ms_pagamento.service.exception.ResourceNotFoundException;
+import br.com.fiap.ms_pagamento.service.exception.ServiceUnavailableException;
+import br.com.fiap.ms_pagamento.service.exception.StatusTransitionException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -40,6 +52,17 @@ public class ControllerExceptionHandler {
         return ResponseEntity.status(status).body(err);
     }
 
+    @ExceptionHandler(BatchValidationException.class)
+    public ResponseEntity<CustomErrorDTO> batchValidation(BatchValidationException e, HttpServletRequest request) {
+        HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
+        ValidationErrorDTO err = new ValidationErrorDTO(Instant.now().toString(),
+                status.value(), e.getMessage(), request.getRequestURI());
+        for (FieldMessageDTO f : e.getErrors()) {
+            err.addError(f.getFieldName(), f.getMessage());
+        }
+        return ResponseEntity.status(status).body(err);
+    }
+
     @ExceptionHandler(DatabaseException.class)
     public ResponseEntity<CustomErrorDTO> databaseException(DatabaseException e,
                                                             HttpServletRequest request) {
@@ -49,6 +72,91 @@ public class ControllerExceptionHandler {
         return ResponseEntity.status(status).body(err);
     }
 
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<CustomErrorDTO> invalidIdempotencyKey(InvalidIdempotencyKeyException e,
+                                                                HttpServletRequest request) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        CustomErrorDTO err = new CustomErrorDTO(Instant.now().toString(),
+                status.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<CustomErrorDTO> idempotencyKeyMismatch(IdempotencyKeyMismatchException e,
+                                                                 HttpServletRequest request) {
+        HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
+        CustomErrorDTO err = new CustomErrorDTO(Instant.now().toString(),
+                status.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<CustomErrorDTO> idempotencyKeyInProgress(IdempotencyKeyInProgressException e,
+                                                                   HttpServletRequest request) {
+        HttpStatus status = HttpStatus.CONFLICT;
+        CustomErrorDTO err = new CustomErrorDTO(Instant.now().toString(),
+                status.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(StatusTransitionException.class)
+    public ResponseEntity<CustomErrorDTO> statusTransition(StatusTransitionException e,
+                                                           HttpServletRequest request) {
+        HttpStatus status = HttpStatus.CONFLICT;
+        CustomErrorDTO err = new CustomErrorDTO(Instant.now().toString(),
+                status.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    // 409 e não 404 nem 410: o pagamento continua existindo e o GET o devolve, só não pode mais ser alterado
+    @ExceptionHandler(PagamentoArquivadoException.class)
+    public ResponseEntity<CustomErrorDTO> pagamentoArquivado(PagamentoArquivadoException e,
+                                                             HttpServletRequest request) {
+        HttpStatus status = HttpStatus.CONFLICT;
+        CustomErrorDTO err = new CustomErrorDTO(Instant.now().toString(),
+                status.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<CustomErrorDTO> preconditionFailed(PreconditionFailedException e,
+                                                             HttpServletRequest request) {
+        HttpStatus status = HttpStatus.PRECONDITION_FAILED;
+        CustomErrorDTO err = new CustomErrorDTO(Instant.now().toString(),
+                status.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    // atualização concorrente sem If-Match: a outra requisição gravou primeiro
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<CustomErrorDTO> optimisticLocking(OptimisticLockingFailureException e,
+                                                            HttpServletRequest request) {
+        HttpStatus status = HttpStatus.CONFLICT;
+        CustomErrorDTO err = new CustomErrorDTO(Instant.now().toString(),
+                status.value(), "Pagamento alterado por outra requisição, tente novamente", request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    // pool de conexões esgotado (timeout do Hikari)
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<CustomErrorDTO> cannotCreateTransaction(CannotCreateTransactionException e,
+                                                                  HttpServletRequest request) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        CustomErrorDTO err = new CustomErrorDTO(Instant.now().toString(),
+                status.value(), "Banco de dados indisponível no momento", request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    // fila do group commit cheia: o cliente deve tentar de novo
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<CustomErrorDTO> serviceUnavailable(ServiceUnavailableException e,
+                                                             HttpServletRequest request) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        CustomErrorDTO err = new CustomErrorDTO(Instant.now().toString(),
+                status.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, "1").body(err);
+    }
+
     @ExceptionHandler(HandlerMethodValidationException.class)
     public ResponseEntity<CustomErrorDTO> handlerMethodValidation(HandlerMethodValidationException e,
                                                                            HttpServletRequest request) {
@@ -0,0 +1,14 @@
+package br.com.fiap.ms_pagamento.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Colunas do cartão como estão gravadas (cifradas ou texto puro legado) - usado pela recifragem
+@AllArgsConstructor
+@Getter
+public class CartaoCifradoDTO {
+
+    private Long id;
+    private String numeroDoCartao;
+    private String codigoDeSeguranca;
+}
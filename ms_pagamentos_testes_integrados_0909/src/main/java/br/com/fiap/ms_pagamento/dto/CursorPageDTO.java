@@ -0,0 +1,15 @@
+package br.com.fiap.ms_pagamento.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Página da paginação por cursor: nextCursor é o último id da página (null quando não há próxima)
+@AllArgsConstructor
+@Getter
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+    private Long nextCursor;
+}
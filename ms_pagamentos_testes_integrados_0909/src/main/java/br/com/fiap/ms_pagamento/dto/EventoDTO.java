@@ -0,0 +1,41 @@
+package br.com.fiap.ms_pagamento.dto;
+
+import br.com.fiap.ms_pagamento.model.EventoOutbox;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.model.TipoEvento;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Evento entregue ao EventoSink. (pedidoId, sequencia) é único e crescente na ordem de commit: serve para o
+// consumidor descartar entregas repetidas. O id também é único, mas não segue a ordem dos eventos
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class EventoDTO {
+
+    private Long id;
+    private TipoEvento tipo;
+    private Long pagamentoId;
+    private Long pedidoId;
+    private Status status;
+    private BigDecimal valor;
+    private Long formaDePagamentoId;
+    private Instant criadoEm;
+    private Long sequencia;
+
+    public EventoDTO(EventoOutbox entity) {
+        id = entity.getId();
+        tipo = entity.getTipo();
+        pagamentoId = entity.getPagamentoId();
+        pedidoId = entity.getPedidoId();
+        status = entity.getStatus();
+        valor = entity.getValor();
+        formaDePagamentoId = entity.getFormaDePagamentoId();
+        criadoEm = entity.getCriadoEm();
+        sequencia = entity.getSequencia();
+    }
+}
@@ -2,18 +2,18 @@ package br.com.fiap.ms_pagamento.dto;
 
 import br.com.fiap.ms_pagamento.model.Pagamento;
 import br.com.fiap.ms_pagamento.model.Status;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
-@AllArgsConstructor
 @NoArgsConstructor
 @Getter
 public class PagamentoDTO {
@@ -25,10 +25,13 @@ public class PagamentoDTO {
     private BigDecimal valor;
     @Size(max = 100, message = "Máximo de 100 caracteres")
     private String nome; // Nome no cartão
+    // número e código de segurança só entram (requisição), nunca saem nas respostas
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Size(max = 19, message = "Número do cartão deve ter no máximo 19 caracteres")
     private String numeroDoCartao; // XXXX XXXX XXXX XXXX
     @Size(min = 5, max = 5, message = "A validade do cartão dever ter 5 caracteres")
     private String validade; // validade do cartão - MM/AA
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Size(min = 3, max = 3, message = "O código de segurança do cartão deve ter 3 caracteres")
     private String codigoDeSeguranca; // código de segurança - XXX
 
@@ -40,6 +43,29 @@ public class PagamentoDTO {
     @NotNull(message = "Forma de pagamento ID é obrigatório")
     @Positive(message = "O ID da forma de pagamento deve ser um número positivo")
     private Long formaDePagamentoId; // 1 - dinheiro | 2 - cartão | 3 - pix
+    @JsonIgnore
+    private Long versao; // vai no header ETag, não no corpo
+    private String cartaoMascarado; // ************1234 - o que as respostas mostram do cartão
+
+    public PagamentoDTO(Long id, BigDecimal valor, String nome, String numeroDoCartao, String validade,
+                        String codigoDeSeguranca, Status status, Long pedidoId, Long formaDePagamentoId, Long versao) {
+        this.id = id;
+        this.valor = valor;
+        this.nome = nome;
+        this.numeroDoCartao = numeroDoCartao;
+        this.validade = validade;
+        this.codigoDeSeguranca = codigoDeSeguranca;
+        this.status = status;
+        this.pedidoId = pedidoId;
+        this.formaDePagamentoId = formaDePagamentoId;
+        this.versao = versao;
+        this.cartaoMascarado = mascarar(numeroDoCartao);
+    }
+
+    public PagamentoDTO(Long id, BigDecimal valor, String nome, String numeroDoCartao, String validade,
+                        String codigoDeSeguranca, Status status, Long pedidoId, Long formaDePagamentoId) {
+        this(id, valor, nome, numeroDoCartao, validade, codigoDeSeguranca, status, pedidoId, formaDePagamentoId, null);
+    }
 
     public PagamentoDTO(Pagamento entity) {
         id = entity.getId();
@@ -51,5 +77,30 @@ public class PagamentoDTO {
         status = entity.getStatus();
         pedidoId = entity.getPedidoId();
         formaDePagamentoId = entity.getFormaDePagamentoId();
+        versao = entity.getVersao();
+        cartaoMascarado = mascarar(numeroDoCartao);
+    }
+
+    // Cartão decifrado (CriptografiaService): o construtor recebe o valor gravado, ainda cifrado
+    public void abrirCartao(String numeroDoCartao, String codigoDeSeguranca) {
+        this.numeroDoCartao = numeroDoCartao;
+        this.codigoDeSeguranca = codigoDeSeguranca;
+        this.cartaoMascarado = mascarar(numeroDoCartao);
+    }
+
+    // só os 4 últimos dígitos ficam visíveis
+    static String mascarar(String numeroDoCartao) {
+        if (numeroDoCartao == null) {
+            return null;
+        }
+        StringBuilder mascara = new StringBuilder(numeroDoCartao.length());
+        int digitos = 0;
+        for (int i = numeroDoCartao.length() - 1; i >= 0; i--) {
+            char c = numeroDoCartao.charAt(i);
+            if (Character.isDigit(c)) {
+                mascara.append(digitos++ < 4 ? c : '*');
+            }
+        }
+        return mascara.reverse().toString();
     }
 }
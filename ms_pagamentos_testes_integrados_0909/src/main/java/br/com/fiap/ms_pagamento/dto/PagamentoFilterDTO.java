@@ -0,0 +1,23 @@
+package br.com.fiap.ms_pagamento.dto;
+
+import br.com.fiap.ms_pagamento.model.Status;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+// Filtros opcionais da listagem - GET /pagamentos?status=CRIADO&valorMin=100
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class PagamentoFilterDTO {
+
+    private Status status;
+    private Long pedidoId;
+    private Long formaDePagamentoId;
+    private BigDecimal valorMin;
+    private BigDecimal valorMax;
+}
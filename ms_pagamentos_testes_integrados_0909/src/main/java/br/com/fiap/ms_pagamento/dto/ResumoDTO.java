@@ -0,0 +1,17 @@
+package br.com.fiap.ms_pagamento.dto;
+
+import br.com.fiap.ms_pagamento.model.Status;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+// Resposta de GET /pagamentos/resumo
+@AllArgsConstructor
+@Getter
+public class ResumoDTO {
+
+    private ResumoTotalDTO geral;
+    private Map<Status, ResumoTotalDTO> porStatus;
+    private Map<Long, ResumoTotalDTO> porFormaDePagamento;
+}
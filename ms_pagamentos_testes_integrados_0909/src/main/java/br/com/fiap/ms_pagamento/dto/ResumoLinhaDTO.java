@@ -0,0 +1,18 @@
+package br.com.fiap.ms_pagamento.dto;
+
+import br.com.fiap.ms_pagamento.model.Status;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+// Quantidade e soma de valor de um grupo (status, forma de pagamento) - usado para montar e atualizar o resumo
+@AllArgsConstructor
+@Getter
+public class ResumoLinhaDTO {
+
+    private Status status;
+    private Long formaDePagamentoId;
+    private Long quantidade;
+    private BigDecimal valor;
+}
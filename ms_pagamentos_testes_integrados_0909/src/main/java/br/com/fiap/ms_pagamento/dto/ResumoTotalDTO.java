@@ -0,0 +1,14 @@
+package br.com.fiap.ms_pagamento.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@AllArgsConstructor
+@Getter
+public class ResumoTotalDTO {
+
+    private long quantidade;
+    private BigDecimal valorTotal;
+}
@@ -1,10 +1,16 @@
 package br.com.fiap.ms_pagamento.dto;
 
 import br.com.fiap.ms_pagamento.model.Status;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 
+@AllArgsConstructor
+@NoArgsConstructor
 @Getter
 public class StatusDTO {
 
+    @NotNull(message = "Campo obrigatório")
     private Status status;
 }
@@ -1,10 +1,12 @@
 package br.com.fiap.ms_pagamento.dto;
 
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 
 import java.util.ArrayList;
 import java.util.List;
 
+@NoArgsConstructor
 @Getter
 public class ValidationErrorDTO extends CustomErrorDTO {
 
@@ -0,0 +1,74 @@
+package br.com.fiap.ms_pagamento.model;
+
+import br.com.fiap.ms_pagamento.service.CriptografiaService;
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+import java.util.Objects;
+
+// Cifra numeroDoCartao e codigoDeSeguranca de Pagamento na gravação, com o id da linha no AAD.
+// Um AttributeConverter não recebe o id, e no persist o id (sequence) só existe depois do @PrePersist - onSave
+// é o primeiro ponto em que o Hibernate já tem o id e ainda não montou o INSERT.
+// Depois de gravada, a entidade fica com o valor cifrado (o mesmo do snapshot do Hibernate, então não há UPDATE
+// espúrio no próximo flush). No UPDATE só é cifrado o campo que a aplicação alterou: valor diferente do snapshot
+// é texto puro novo.
+public class CampoCriptografadoInterceptor implements Interceptor {
+
+    private static final String NUMERO_DO_CARTAO = "numeroDoCartao";
+    private static final String CODIGO_DE_SEGURANCA = "codigoDeSeguranca";
+
+    private final CriptografiaService criptografia;
+
+    public CampoCriptografadoInterceptor(CriptografiaService criptografia) {
+        this.criptografia = criptografia;
+    }
+
+    // true: o Hibernate copia o estado cifrado de volta para a entidade
+    @Override
+    public boolean onSave(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        if (!(entity instanceof Pagamento)) {
+            return false;
+        }
+        boolean alterado = false;
+        for (int i = 0; i < propertyNames.length; i++) {
+            String coluna = coluna(propertyNames[i]);
+            if (coluna != null && state[i] != null) {
+                state[i] = criptografia.cifrar(coluna, (Long) id, (String) state[i]);
+                alterado = true;
+            }
+        }
+        return alterado;
+    }
+
+    // aqui o Hibernate não copia o estado para a entidade - os setters fazem isso
+    @Override
+    public boolean onFlushDirty(Object entity, Object id, Object[] currentState, Object[] previousState,
+                                String[] propertyNames, Type[] types) {
+        if (!(entity instanceof Pagamento pagamento)) {
+            return false;
+        }
+        boolean alterado = false;
+        for (int i = 0; i < propertyNames.length; i++) {
+            String coluna = coluna(propertyNames[i]);
+            if (coluna != null && currentState[i] != null && !Objects.equals(currentState[i], previousState[i])) {
+                String cifrado = criptografia.cifrar(coluna, (Long) id, (String) currentState[i]);
+                currentState[i] = cifrado;
+                if (NUMERO_DO_CARTAO.equals(propertyNames[i])) {
+                    pagamento.setNumeroDoCartao(cifrado);
+                } else {
+                    pagamento.setCodigoDeSeguranca(cifrado);
+                }
+                alterado = true;
+            }
+        }
+        return alterado;
+    }
+
+    private static String coluna(String propriedade) {
+        return switch (propriedade) {
+            case NUMERO_DO_CARTAO -> CriptografiaService.NUMERO_DO_CARTAO;
+            case CODIGO_DE_SEGURANCA -> CriptografiaService.CODIGO_DE_SEGURANCA;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package br.com.fiap.ms_pagamento.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+
+@Entity
+// Outbox: gravado na mesma transação da alteração do pagamento e apagado depois de publicado.
+// Só dados de negócio - número do cartão e código de segurança não saem nos eventos.
+// O id vem de uma sequência com allocationSize 50 e não segue a ordem de commit; a ordem dos eventos de um
+// pedido é a sequencia, atribuída no commit (OutboxService).
+@Table(name = "tb_evento_outbox", indexes = {
+        @Index(name = "idx_evento_outbox_pedido_sequencia", columnList = "pedido_id, sequencia")
+})
+public class EventoOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "evento_outbox_seq")
+    @SequenceGenerator(name = "evento_outbox_seq", sequenceName = "tb_evento_outbox_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    @Enumerated(value = EnumType.STRING)
+    private TipoEvento tipo;
+    @Column(nullable = false)
+    private Long pagamentoId;
+    @Column(nullable = false)
+    private Long pedidoId;
+    @Enumerated(value = EnumType.STRING)
+    private Status status;
+    private BigDecimal valor;
+    private Long formaDePagamentoId;
+    @Column(nullable = false)
+    private Instant criadoEm;
+    private Long sequencia; // 1, 2, 3... por pedido; nula só até o commit da transação que gravou o evento
+}
@@ -0,0 +1,42 @@
+package br.com.fiap.ms_pagamento.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+
+@Entity
+@IdClass(IdempotenciaId.class)
+@Table(name = "tb_idempotencia", indexes = {
+        @Index(name = "idx_idempotencia_criado_em", columnList = "criado_em")
+})
+public class Idempotencia {
+
+    @Id
+    @Column(length = 100)
+    private String cliente; // header de identificação do cliente (pagamento.idempotencia.header-cliente) ou IP
+    @Id
+    @Column(length = 100)
+    private String chave; // header Idempotency-Key
+    @Column(nullable = false, length = 100)
+    private String hashRequisicao; // "<id da chave>:" + HMAC-SHA256 (hex) do corpo original, cartão incluído
+    @Lob
+    @Column(nullable = false)
+    private String resposta; // corpo JSON da resposta 201 original
+    @Column(nullable = false)
+    private Instant criadoEm;
+}
@@ -0,0 +1,19 @@
+package br.com.fiap.ms_pagamento.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Chave de tb_idempotencia: a mesma Idempotency-Key de clientes diferentes são registros diferentes
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@EqualsAndHashCode
+public class IdempotenciaId implements Serializable {
+
+    private String cliente;
+    private String chave;
+}
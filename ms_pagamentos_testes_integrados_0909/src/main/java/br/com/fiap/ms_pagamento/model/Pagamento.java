@@ -1,5 +1,6 @@
 package br.com.fiap.ms_pagamento.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -7,13 +8,21 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -21,15 +30,33 @@ import java.math.BigDecimal;
 @Setter
 
 @Entity
-@Table(name = "tb_pagamento")
+// índices compostos terminando em id atendem os filtros da paginação por cursor (keyset)
+@Table(name = "tb_pagamento", indexes = {
+        @Index(name = "idx_pagamento_status_id", columnList = "status, id"),
+        @Index(name = "idx_pagamento_pedido_status", columnList = "pedido_id, status"),
+        @Index(name = "idx_pagamento_forma_id", columnList = "forma_de_pagamento_id, id"),
+        @Index(name = "idx_pagamento_valor_id", columnList = "valor, id"),
+        @Index(name = "idx_pagamento_status_atualizado", columnList = "status, atualizado_em")
+})
+// cache de segundo nível (região em application.conf). READ_WRITE: durante a transação a entrada fica
+// travada e só recebe o novo estado no commit - nenhuma leitura concorrente vê um valor antigo como atual
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Pagamento.REGIAO_CACHE)
 public class Pagamento {
 
+    public static final String REGIAO_CACHE = "pagamento";
+
+    // SEQUENCE (e não IDENTITY): com IDENTITY o Hibernate precisa executar cada INSERT na hora para obter o id,
+    // o que desliga o batch de INSERTs. allocationSize deve acompanhar o INCREMENT BY da sequence.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pagamento_seq")
+    @SequenceGenerator(name = "pagamento_seq", sequenceName = "tb_pagamento_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private BigDecimal valor;
     private String nome; // Nome no cartão
+    // dados do cartão gravados cifrados (AES-GCM, CampoCriptografadoInterceptor): depois de gravada ou carregada
+    // a entidade tem o valor cifrado; o texto puro só existe entre o set e o flush
     private String numeroDoCartao; // XXXX XXXX XXXX XXXX
     private String validade; // validade do cartão - MM/AA
     private String codigoDeSeguranca; // código de segurança - XXX
@@ -40,4 +67,21 @@ public class Pagamento {
     private Long pedidoId;  // Id do pedido
     @Column(nullable = false)
     private Long formaDePagamentoId; // 1 - dinheiro | 2 - cartão | 3 - pix
+    // incrementada a cada alteração - vira o ETag das respostas
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+    // preenchidos pelo Hibernate; o UPDATE em massa de status atualiza atualizadoEm explicitamente.
+    // atualizadoEm decide quando um pagamento encerrado vai para o arquivo (ArquivamentoService)
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private Instant criadoEm;
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private Instant atualizadoEm;
+
+    public Pagamento(Long id, BigDecimal valor, String nome, String numeroDoCartao, String validade,
+                     String codigoDeSeguranca, Status status, Long pedidoId, Long formaDePagamentoId) {
+        this(id, valor, nome, numeroDoCartao, validade, codigoDeSeguranca, status, pedidoId, formaDePagamentoId, null, null, null);
+    }
 }
@@ -0,0 +1,54 @@
+package br.com.fiap.ms_pagamento.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@NoArgsConstructor
+@Getter
+
+@Entity
+// Pagamentos encerrados (CONFIRMADO/CANCELADO) movidos de tb_pagamento pelo ArquivamentoService.
+// Mesmas colunas (o cartão continua cifrado, copiado sem decifrar) e o mesmo id; só leitura na aplicação.
+// criado_em indexado: em um banco com particionamento a tabela seria particionada por faixa dessa coluna
+// e os períodos antigos descartados com DROP PARTITION em vez de DELETE.
+// pedido_id indexado para a busca por pedido, que junta os arquivados aos de tb_pagamento.
+@Table(name = "tb_pagamento_arquivo", indexes = {
+        @Index(name = "idx_pagamento_arquivo_criado", columnList = "criado_em"),
+        @Index(name = "idx_pagamento_arquivo_pedido", columnList = "pedido_id")
+})
+public class PagamentoArquivado {
+
+    @Id
+    private Long id;
+    @Column(nullable = false)
+    private BigDecimal valor;
+    private String nome;
+    private String numeroDoCartao;
+    private String validade;
+    private String codigoDeSeguranca;
+    @Column(nullable = false)
+    @Enumerated(value = EnumType.STRING)
+    private Status status;
+    @Column(nullable = false)
+    private Long pedidoId;
+    @Column(nullable = false)
+    private Long formaDePagamentoId;
+    @Column(nullable = false)
+    private Long versao;
+    @Column(nullable = false)
+    private Instant criadoEm;
+    @Column(nullable = false)
+    private Instant atualizadoEm;
+    @Column(nullable = false)
+    private Instant arquivadoEm;
+}
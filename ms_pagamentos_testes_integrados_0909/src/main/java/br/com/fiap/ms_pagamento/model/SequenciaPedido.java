@@ -0,0 +1,27 @@
+package br.com.fiap.ms_pagamento.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+
+@Entity
+// Última sequência de evento usada por pedido (EventoOutbox.sequencia). A linha fica travada do fim da
+// transação que gravou os eventos até o commit, então a sequência de um pedido segue a ordem de commit.
+@Table(name = "tb_pedido_sequencia")
+public class SequenciaPedido {
+
+    @Id
+    private Long pedidoId;
+    @Column(nullable = false)
+    private Long ultimo;
+}
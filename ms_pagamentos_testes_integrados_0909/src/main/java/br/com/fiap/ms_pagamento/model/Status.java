@@ -4,5 +4,10 @@ public enum Status {
 
     CRIADO,
     CONFIRMADO,
-    CANCELADO
+    CANCELADO;
+
+    // transições válidas: CRIADO -> CONFIRMADO | CRIADO -> CANCELADO
+    public boolean permiteTransicaoPara(Status novoStatus) {
+        return this == CRIADO && (novoStatus == CONFIRMADO || novoStatus == CANCELADO);
+    }
 }
@@ -0,0 +1,9 @@
+package br.com.fiap.ms_pagamento.model;
+
+// Tipos de evento gravados no outbox (tb_evento_outbox)
+public enum TipoEvento {
+    PAGAMENTO_CRIADO,
+    PAGAMENTO_ATUALIZADO,
+    STATUS_ALTERADO,
+    PAGAMENTO_EXCLUIDO
+}
@@ -0,0 +1,32 @@
+package br.com.fiap.ms_pagamento.repository;
+
+import br.com.fiap.ms_pagamento.model.EventoOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    // Próximo lote a publicar, na ordem de gravação
+    @Query("SELECT e FROM EventoOutbox e ORDER BY e.id")
+    List<EventoOutbox> findLote(Pageable limit);
+
+    // Eventos pendentes dos pedidos de um lote que ficaram fora dele (índice idx_evento_outbox_pedido_sequencia)
+    @Query("SELECT e FROM EventoOutbox e WHERE e.pedidoId IN :pedidos AND e.id NOT IN :ids")
+    List<EventoOutbox> findPendentesDosPedidos(@Param("pedidos") Collection<Long> pedidos,
+                                               @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM EventoOutbox e WHERE e.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Data do evento pendente mais antigo (null quando o outbox está vazio) - métrica de atraso
+    @Query("SELECT MIN(e.criadoEm) FROM EventoOutbox e")
+    Instant findCriadoEmMaisAntigo();
+}
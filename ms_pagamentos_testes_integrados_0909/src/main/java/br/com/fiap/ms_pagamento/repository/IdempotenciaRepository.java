@@ -0,0 +1,21 @@
+package br.com.fiap.ms_pagamento.repository;
+
+import br.com.fiap.ms_pagamento.model.Idempotencia;
+import br.com.fiap.ms_pagamento.model.IdempotenciaId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface IdempotenciaRepository extends JpaRepository<Idempotencia, IdempotenciaId> {
+
+    @Modifying
+    @Query("DELETE FROM Idempotencia i WHERE i.cliente = :cliente AND i.chave = :chave")
+    int deleteByClienteAndChave(@Param("cliente") String cliente, @Param("chave") String chave);
+
+    @Modifying
+    @Query("DELETE FROM Idempotencia i WHERE i.criadoEm < :limite")
+    int deleteByCriadoEmBefore(@Param("limite") Instant limite);
+}
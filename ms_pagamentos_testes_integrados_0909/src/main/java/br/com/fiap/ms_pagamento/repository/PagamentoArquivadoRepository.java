@@ -0,0 +1,85 @@
+package br.com.fiap.ms_pagamento.repository;
+
+import br.com.fiap.ms_pagamento.dto.CartaoCifradoDTO;
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.dto.ResumoLinhaDTO;
+import br.com.fiap.ms_pagamento.model.PagamentoArquivado;
+import br.com.fiap.ms_pagamento.model.Status;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PagamentoArquivadoRepository extends JpaRepository<PagamentoArquivado, Long> {
+
+    String DTO_PROJECTION = "SELECT new br.com.fiap.ms_pagamento.dto.PagamentoDTO(" +
+            "p.id, p.valor, p.nome, p.numeroDoCartao, p.validade, p.codigoDeSeguranca, " +
+            "p.status, p.pedidoId, p.formaDePagamentoId, p.versao) FROM PagamentoArquivado p ";
+
+    // Região própria (application.conf): o arquivo só muda no arquivamento e na recifragem, e a busca por
+    // pedido consulta as duas tabelas - na mesma região, uma escrita em tb_pagamento descartaria as duas
+    String REGIAO_CONSULTAS = "pagamento-arquivo-consultas";
+
+    @Query(DTO_PROJECTION + "WHERE p.id = :id")
+    Optional<PagamentoDTO> findDtoById(@Param("id") Long id);
+
+    // Pagamentos arquivados de um pedido (índice idx_pagamento_arquivo_pedido) - complementa
+    // PagamentoRepository.findByPedidoId
+    @Query(DTO_PROJECTION +
+            "WHERE p.pedidoId = :pedidoId " +
+            "AND (:status IS NULL OR p.status = :status) " +
+            "ORDER BY p.id")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)})
+    List<PagamentoDTO> findByPedidoId(@Param("pedidoId") Long pedidoId, @Param("status") Status status);
+
+    @Query(DTO_PROJECTION +
+            "WHERE p.pedidoId IN :pedidoIds " +
+            "AND (:status IS NULL OR p.status = :status) " +
+            "ORDER BY p.pedidoId, p.id")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)})
+    List<PagamentoDTO> findByPedidoIdIn(@Param("pedidoIds") Collection<Long> pedidoIds, @Param("status") Status status);
+
+    @Query("SELECT p.versao FROM PagamentoArquivado p WHERE p.id = :id")
+    Optional<Long> findVersaoById(@Param("id") Long id);
+
+    // INSERT ... SELECT direto no banco: as linhas não passam pela aplicação e o cartão não é decifrado
+    @Modifying
+    @Query("INSERT INTO PagamentoArquivado (id, valor, nome, numeroDoCartao, validade, codigoDeSeguranca, status, " +
+            "pedidoId, formaDePagamentoId, versao, criadoEm, atualizadoEm, arquivadoEm) " +
+            "SELECT p.id, p.valor, p.nome, p.numeroDoCartao, p.validade, p.codigoDeSeguranca, p.status, " +
+            "p.pedidoId, p.formaDePagamentoId, p.versao, p.criadoEm, p.atualizadoEm, :arquivadoEm " +
+            "FROM Pagamento p WHERE p.id IN :ids")
+    int copiarDeTbPagamento(@Param("ids") Collection<Long> ids, @Param("arquivadoEm") Instant arquivadoEm);
+
+    // Soma do arquivo na carga inicial do resumo (ResumoService) - arquivado continua sendo pagamento
+    @Query("SELECT new br.com.fiap.ms_pagamento.dto.ResumoLinhaDTO(p.status, p.formaDePagamentoId, COUNT(p), SUM(p.valor)) " +
+            "FROM PagamentoArquivado p GROUP BY p.status, p.formaDePagamentoId")
+    List<ResumoLinhaDTO> groupByStatusAndForma();
+
+    // Recifragem do arquivo - mesmas consultas de PagamentoRepository
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new br.com.fiap.ms_pagamento.dto.CartaoCifradoDTO(p.id, p.numeroDoCartao, p.codigoDeSeguranca) " +
+            "FROM PagamentoArquivado p WHERE p.id > :cursor " +
+            "AND ((p.numeroDoCartao IS NOT NULL AND p.numeroDoCartao NOT LIKE :prefixo) " +
+            "OR (p.codigoDeSeguranca IS NOT NULL AND p.codigoDeSeguranca NOT LIKE :prefixo)) ORDER BY p.id")
+    List<CartaoCifradoDTO> findCartoesParaRecifrar(@Param("cursor") Long cursor,
+                                                   @Param("prefixo") String prefixo,
+                                                   Pageable limit);
+
+    @Modifying
+    @Query("UPDATE PagamentoArquivado p SET p.numeroDoCartao = :numero, p.codigoDeSeguranca = :codigo WHERE p.id = :id")
+    int updateCartao(@Param("id") Long id, @Param("numero") String numero, @Param("codigo") String codigo);
+}
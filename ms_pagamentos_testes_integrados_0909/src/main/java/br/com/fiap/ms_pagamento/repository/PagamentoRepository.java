@@ -1,7 +1,115 @@
 package br.com.fiap.ms_pagamento.repository;
 
+import br.com.fiap.ms_pagamento.dto.CartaoCifradoDTO;
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.dto.ResumoLinhaDTO;
 import br.com.fiap.ms_pagamento.model.Pagamento;
+import br.com.fiap.ms_pagamento.model.Status;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface PagamentoRepository extends JpaRepository<Pagamento, Long> {
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface PagamentoRepository extends JpaRepository<Pagamento, Long>, PagamentoRepositoryCustom {
+
+    // Projeção direto no DTO (constructor expression): as linhas não viram entidades gerenciadas,
+    // então não há snapshot para dirty checking nem cópia entidade -> DTO nas consultas de leitura.
+    String DTO_PROJECTION = "SELECT new br.com.fiap.ms_pagamento.dto.PagamentoDTO(" +
+            "p.id, p.valor, p.nome, p.numeroDoCartao, p.validade, p.codigoDeSeguranca, " +
+            "p.status, p.pedidoId, p.formaDePagamentoId, p.versao) FROM Pagamento p ";
+
+    // Região do cache de consultas do Hibernate (application.conf). O resultado é descartado quando
+    // tb_pagamento é alterada pelo Hibernate - inclusive pelos UPDATE/DELETE em massa abaixo.
+    // Ficam de fora a paginação por cursor (cada página é uma chave diferente) e as consultas com lock.
+    String REGIAO_CONSULTAS = "pagamento-consultas";
+
+    @Query(DTO_PROJECTION + "WHERE p.id = :id")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)})
+    Optional<PagamentoDTO> findDtoById(@Param("id") Long id);
+
+    // Só a versão (ETag) - responde If-None-Match sem montar o DTO
+    @Query("SELECT p.versao FROM Pagamento p WHERE p.id = :id")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)})
+    Optional<Long> findVersaoById(@Param("id") Long id);
+
+    // Pagamentos de um pedido (índice idx_pagamento_pedido_status), opcionalmente filtrados por status
+    @Query(DTO_PROJECTION +
+            "WHERE p.pedidoId = :pedidoId " +
+            "AND (:status IS NULL OR p.status = :status) " +
+            "ORDER BY p.id")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)})
+    List<PagamentoDTO> findByPedidoId(@Param("pedidoId") Long pedidoId, @Param("status") Status status);
+
+    // Vários pedidos em um único SELECT ... IN - quem chama limita o tamanho da lista
+    @Query(DTO_PROJECTION +
+            "WHERE p.pedidoId IN :pedidoIds " +
+            "AND (:status IS NULL OR p.status = :status) " +
+            "ORDER BY p.pedidoId, p.id")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)})
+    List<PagamentoDTO> findByPedidoIdIn(@Param("pedidoIds") Collection<Long> pedidoIds, @Param("status") Status status);
+
+    // Cursor forward-only para a exportação: as linhas são lidas do banco aos poucos (fetch size),
+    // sem montar a lista inteira em memória. Precisa ser consumido dentro de uma transação.
+    @Query(DTO_PROJECTION + "ORDER BY p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<PagamentoDTO> streamAll();
+
+
+    // Exclusão em massa - quem chama limita o tamanho da lista do IN
+    @Modifying
+    @Query("DELETE FROM Pagamento p WHERE p.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Carga inicial do resumo (ResumoService)
+    @Query("SELECT new br.com.fiap.ms_pagamento.dto.ResumoLinhaDTO(p.status, p.formaDePagamentoId, COUNT(p), SUM(p.valor)) " +
+            "FROM Pagamento p GROUP BY p.status, p.formaDePagamentoId")
+    List<ResumoLinhaDTO> groupByStatusAndForma();
+
+
+    // Próximo lote do arquivamento (índice idx_pagamento_status_atualizado), em ordem de id a partir do cursor.
+    // FOR UPDATE SKIP LOCKED: trava só o lote até o DELETE e pula linhas em uso, sem esperar por elas
+    // (no H2 o dialeto não tem SKIP LOCKED e o Hibernate gera FOR UPDATE simples, que espera a linha).
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "" + LockOptions.SKIP_LOCKED))
+    @Query("SELECT p.id FROM Pagamento p WHERE p.id > :cursor AND p.status IN :status " +
+            "AND p.atualizadoEm < :limite ORDER BY p.id")
+    List<Long> findIdsParaArquivar(@Param("cursor") Long cursor,
+                                   @Param("status") Collection<Status> status,
+                                   @Param("limite") Instant limite,
+                                   Pageable limit);
+
+    // Próximo lote da recifragem (RecifragemService): cartão em texto puro ou cifrado com uma chave que não é a
+    // ativa (prefixo = "<chave ativa>:%"). FOR UPDATE até o UPDATE do lote, como na exclusão
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new br.com.fiap.ms_pagamento.dto.CartaoCifradoDTO(p.id, p.numeroDoCartao, p.codigoDeSeguranca) " +
+            "FROM Pagamento p WHERE p.id > :cursor " +
+            "AND ((p.numeroDoCartao IS NOT NULL AND p.numeroDoCartao NOT LIKE :prefixo) " +
+            "OR (p.codigoDeSeguranca IS NOT NULL AND p.codigoDeSeguranca NOT LIKE :prefixo)) ORDER BY p.id")
+    List<CartaoCifradoDTO> findCartoesParaRecifrar(@Param("cursor") Long cursor,
+                                                   @Param("prefixo") String prefixo,
+                                                   Pageable limit);
+
+    // Grava o cartão já cifrado: UPDATE direto, sem passar pelo CampoCriptografadoInterceptor e sem mudar a versão
+    // (o conteúdo é o mesmo)
+    @Modifying
+    @Query("UPDATE Pagamento p SET p.numeroDoCartao = :numero, p.codigoDeSeguranca = :codigo WHERE p.id = :id")
+    int updateCartao(@Param("id") Long id, @Param("numero") String numero, @Param("codigo") String codigo);
 }
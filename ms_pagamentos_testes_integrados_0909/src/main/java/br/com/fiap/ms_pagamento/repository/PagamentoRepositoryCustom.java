@@ -0,0 +1,31 @@
+package br.com.fiap.ms_pagamento.repository;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.model.Status;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Consultas que o Spring Data não gera (implementadas em PagamentoRepositoryImpl)
+public interface PagamentoRepositoryCustom {
+
+    // Paginação por cursor (keyset): "id > cursor" em vez de OFFSET, o custo de qualquer página é o mesmo da primeira.
+    // Retorna List (e não Page) para não disparar o SELECT COUNT. Filtros nulos ficam fora do WHERE: com
+    // "(:x IS NULL OR ...)" o plano, montado uma vez para todas as combinações, não usa nenhum dos índices.
+    List<PagamentoDTO> findPage(Long cursor, Status status, Long pedidoId, Long formaDePagamentoId,
+                                BigDecimal valorMin, BigDecimal valorMax, Pageable limit);
+
+    // Exclui e devolve as linhas excluídas (valores para o resumo e para os eventos), em ordem de id. No H2 e no
+    // PostgreSQL é um comando só (DELETE ... RETURNING); nos demais bancos, SELECT ... FOR UPDATE + DELETE na
+    // mesma transação. Ids inexistentes são ignorados.
+    List<PagamentoDTO> deleteAllReturning(Collection<Long> ids);
+
+    // Compare-and-set do status (mais versao + 1 e atualizadoEm) sem carregar a entidade, devolvendo a linha como
+    // ficou. No H2 e no PostgreSQL é um comando só; nos demais, UPDATE em massa + SELECT da linha já travada.
+    // Vazio quando o pagamento não existe ou não está mais no status esperado.
+    Optional<PagamentoDTO> updateStatusReturning(Long id, Status statusAtual, Status novoStatus, Instant agora);
+}
@@ -0,0 +1,217 @@
+package br.com.fiap.ms_pagamento.repository;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.model.Pagamento;
+import br.com.fiap.ms_pagamento.model.Status;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.DatabaseMetaData;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class PagamentoRepositoryImpl implements PagamentoRepositoryCustom {
+
+    private static final String COLUNAS = "id, valor, nome, numero_do_cartao, validade, codigo_de_seguranca, " +
+            "status, pedido_id, forma_de_pagamento_id, versao";
+
+    // DELETE que devolve as linhas excluídas, na forma de cada banco que tem uma (os demais usam deleteAllComSelect).
+    // No H2, OLD TABLE são as linhas como estavam antes do DELETE
+    private static final String DELETE_H2 =
+            "SELECT " + COLUNAS + " FROM OLD TABLE (DELETE FROM tb_pagamento WHERE id IN (:ids))";
+    private static final String DELETE_POSTGRESQL =
+            "DELETE FROM tb_pagamento WHERE id IN (:ids) RETURNING " + COLUNAS;
+
+    // UPDATE que devolve a linha atualizada; FINAL TABLE são as linhas como ficaram depois do UPDATE
+    private static final String SET_STATUS = "UPDATE tb_pagamento " +
+            "SET status = :novoStatus, versao = versao + 1, atualizado_em = :agora " +
+            "WHERE id = :id AND status = :statusAtual";
+    private static final String UPDATE_STATUS_H2 = "SELECT " + COLUNAS + " FROM FINAL TABLE (" + SET_STATUS + ")";
+    private static final String UPDATE_STATUS_POSTGRESQL = SET_STATUS + " RETURNING " + COLUNAS;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private volatile DatabaseDriver banco;
+
+    // Uma consulta por combinação de filtros (no máximo 2^6 formas no cache de planos do Hibernate e do H2),
+    // cada uma com só as condições presentes - e o otimizador escolhe o índice do filtro informado
+    @Override
+    public List<PagamentoDTO> findPage(Long cursor, Status status, Long pedidoId, Long formaDePagamentoId,
+                                       BigDecimal valorMin, BigDecimal valorMax, Pageable limit) {
+        Map<String, Object> parametros = new LinkedHashMap<>();
+        List<String> condicoes = new ArrayList<>();
+        condicao(condicoes, parametros, "p.id > :cursor", "cursor", cursor);
+        condicao(condicoes, parametros, "p.status = :status", "status", status);
+        condicao(condicoes, parametros, "p.pedidoId = :pedidoId", "pedidoId", pedidoId);
+        condicao(condicoes, parametros, "p.formaDePagamentoId = :formaDePagamentoId", "formaDePagamentoId",
+                formaDePagamentoId);
+        condicao(condicoes, parametros, "p.valor >= :valorMin", "valorMin", valorMin);
+        condicao(condicoes, parametros, "p.valor <= :valorMax", "valorMax", valorMax);
+
+        String jpql = PagamentoRepository.DTO_PROJECTION +
+                (condicoes.isEmpty() ? "" : "WHERE " + String.join(" AND ", condicoes) + " ") + "ORDER BY p.id";
+        TypedQuery<PagamentoDTO> query = entityManager.createQuery(jpql, PagamentoDTO.class)
+                .setMaxResults(limit.getPageSize());
+        parametros.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    private static void condicao(List<String> condicoes, Map<String, Object> parametros,
+                                 String condicao, String nome, Object valor) {
+        if (valor != null) {
+            condicoes.add(condicao);
+            parametros.put(nome, valor);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<PagamentoDTO> deleteAllReturning(Collection<Long> ids) {
+        String sql = switch (banco()) {
+            case H2 -> DELETE_H2;
+            case POSTGRESQL -> DELETE_POSTGRESQL;
+            default -> null;
+        };
+        if (sql == null) {
+            return deleteAllComSelect(ids);
+        }
+        List<Object[]> linhas = entityManager.createNativeQuery(sql)
+                .setParameter("ids", ids)
+                .getResultList();
+        List<PagamentoDTO> result = new ArrayList<>(linhas.size());
+        for (Object[] linha : linhas) {
+            result.add(paraDto(linha));
+        }
+        result.sort(Comparator.comparing(PagamentoDTO::getId));
+        invalidarCaches(result.stream().map(PagamentoDTO::getId).toList());
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<PagamentoDTO> updateStatusReturning(Long id, Status statusAtual, Status novoStatus,
+                                                        Instant agora) {
+        String sql = switch (banco()) {
+            case H2 -> UPDATE_STATUS_H2;
+            case POSTGRESQL -> UPDATE_STATUS_POSTGRESQL;
+            default -> null;
+        };
+        if (sql == null) {
+            return updateStatusComSelect(id, statusAtual, novoStatus, agora);
+        }
+        List<Object[]> linhas = entityManager.createNativeQuery(sql)
+                .setParameter("id", id)
+                .setParameter("statusAtual", statusAtual.name())
+                .setParameter("novoStatus", novoStatus.name())
+                .setParameter("agora", agora)
+                .getResultList();
+        if (linhas.isEmpty()) {
+            return Optional.empty();
+        }
+        invalidarCaches(List.of(id));
+        return Optional.of(paraDto(linhas.get(0)));
+    }
+
+    // Forma portátil: o UPDATE em massa trava a linha e invalida os caches do Hibernate; o SELECT relê a linha
+    private Optional<PagamentoDTO> updateStatusComSelect(Long id, Status statusAtual, Status novoStatus,
+                                                         Instant agora) {
+        int atualizados = entityManager.createQuery("UPDATE Pagamento p " +
+                        "SET p.status = :novoStatus, p.versao = p.versao + 1, p.atualizadoEm = :agora " +
+                        "WHERE p.id = :id AND p.status = :statusAtual")
+                .setParameter("id", id)
+                .setParameter("statusAtual", statusAtual)
+                .setParameter("novoStatus", novoStatus)
+                .setParameter("agora", agora)
+                .executeUpdate();
+        if (atualizados == 0) {
+            return Optional.empty();
+        }
+        return entityManager.createQuery(PagamentoRepository.DTO_PROJECTION + "WHERE p.id = :id", PagamentoDTO.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    // linha na ordem de COLUNAS -> DTO (cartão ainda cifrado, como nas projeções)
+    private static PagamentoDTO paraDto(Object[] linha) {
+        return new PagamentoDTO(((Number) linha[0]).longValue(), (BigDecimal) linha[1], (String) linha[2],
+                (String) linha[3], (String) linha[4], (String) linha[5], Status.valueOf((String) linha[6]),
+                ((Number) linha[7]).longValue(), ((Number) linha[8]).longValue(), ((Number) linha[9]).longValue());
+    }
+
+    // Forma portátil: SELECT ... FOR UPDATE (nenhuma outra transação altera as linhas até o DELETE) + DELETE em massa.
+    // O DELETE em JPQL já invalida os caches do Hibernate no commit
+    private List<PagamentoDTO> deleteAllComSelect(Collection<Long> ids) {
+        List<PagamentoDTO> linhas = entityManager.createQuery(PagamentoRepository.DTO_PROJECTION +
+                        "WHERE p.id IN :ids ORDER BY p.id", PagamentoDTO.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if (!linhas.isEmpty()) {
+            entityManager.createQuery("DELETE FROM Pagamento p WHERE p.id IN :ids")
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+        return linhas;
+    }
+
+    // Para o Hibernate o comando nativo com retorno é uma consulta: não invalida o cache de 2º nível nem o de
+    // consultas como um DELETE em massa faria. Invalida agora e de novo ao fim da transação - entre os dois, uma
+    // leitura concorrente ainda vê a linha confirmada antiga e pode recolocá-la no cache.
+    private void invalidarCaches(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        Runnable invalidar = () -> {
+            ids.forEach(id -> cache.evict(Pagamento.class, id));
+            cache.unwrap(org.hibernate.Cache.class).evictQueryRegion(PagamentoRepository.REGIAO_CONSULTAS);
+        };
+        invalidar.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidar.run();
+                }
+            });
+        }
+    }
+
+    // Banco do DataSource principal, lido uma vez dos metadados da conexão
+    DatabaseDriver banco() {
+        DatabaseDriver atual = banco;
+        if (atual == null) {
+            try {
+                atual = DatabaseDriver.fromProductName(
+                        JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+            } catch (MetaDataAccessException e) {
+                atual = DatabaseDriver.UNKNOWN;
+            }
+            banco = atual;
+        }
+        return atual;
+    }
+}
@@ -0,0 +1,94 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.repository.PagamentoArquivadoRepository;
+import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Move pagamentos encerrados (CONFIRMADO/CANCELADO) sem alteração há mais de pagamento.arquivamento.idade
+// de tb_pagamento para tb_pagamento_arquivo, para a tabela quente não crescer sem limite.
+// Cada lote é uma transação curta: SELECT ... FOR UPDATE SKIP LOCKED dos ids (onde o banco suporta, linhas em
+// uso por outra transação ficam para a próxima execução), INSERT ... SELECT no arquivo e DELETE. Ou o lote inteiro foi
+// movido, ou nada - por isso não há estado a guardar: depois de uma queda, a próxima execução continua de onde
+// parou. Dentro de uma execução os lotes avançam por id (keyset).
+@Service
+@ConditionalOnProperty(name = "pagamento.arquivamento.enabled", havingValue = "true", matchIfMissing = true)
+public class ArquivamentoService {
+
+    private static final List<Status> ENCERRADOS = List.of(Status.CONFIRMADO, Status.CANCELADO);
+
+    @Autowired
+    private PagamentoRepository repository;
+
+    @Autowired
+    private PagamentoArquivadoRepository arquivadoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${pagamento.arquivamento.idade:90d}")
+    private Duration idade;
+
+    // linhas por lote (um SELECT, um INSERT ... SELECT e um DELETE)
+    @Value("${pagamento.arquivamento.lote:500}")
+    private int tamanhoLote;
+
+    // limite de lotes por execução, para uma execução atrasada não ocupar o banco por muito tempo
+    @Value("${pagamento.arquivamento.max-lotes:200}")
+    private int maxLotes;
+
+    private Counter arquivados;
+
+    @PostConstruct
+    void registrarMetricas() {
+        arquivados = registry.counter("pagamento.arquivamento.arquivados");
+    }
+
+    @Scheduled(fixedDelayString = "${pagamento.arquivamento.intervalo-ms:600000}",
+            initialDelayString = "${pagamento.arquivamento.intervalo-ms:600000}")
+    public int arquivar() {
+        Instant limite = Instant.now().minus(idade);
+        long cursor = 0;
+        int total = 0;
+        for (int i = 0; i < maxLotes; i++) {
+            long inicio = cursor;
+            List<Long> ids = transactionTemplate.execute(status -> arquivarLote(inicio, limite));
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            // só depois do commit: um lote desfeito não conta
+            arquivados.increment(ids.size());
+            total += ids.size();
+            cursor = ids.get(ids.size() - 1);
+            if (ids.size() < tamanhoLote) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private List<Long> arquivarLote(long cursor, Instant limite) {
+        List<Long> ids = repository.findIdsParaArquivar(cursor, ENCERRADOS, limite, PageRequest.of(0, tamanhoLote));
+        if (!ids.isEmpty()) {
+            arquivadoRepository.copiarDeTbPagamento(ids, Instant.now());
+            repository.deleteAllByIdIn(ids);
+        }
+        return ids;
+    }
+}
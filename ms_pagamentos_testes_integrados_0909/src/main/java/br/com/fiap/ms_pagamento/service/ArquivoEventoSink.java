@@ -0,0 +1,46 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.EventoDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Sink local em arquivo NDJSON (um evento por linha). O lote só é confirmado depois do fsync.
+public class ArquivoEventoSink implements EventoSink {
+
+    private final Path arquivo;
+    private final ObjectWriter writer;
+
+    public ArquivoEventoSink(Path arquivo, ObjectMapper objectMapper) {
+        this.arquivo = arquivo;
+        this.writer = objectMapper.writerFor(EventoDTO.class);
+    }
+
+    @Override
+    public synchronized void publicar(List<EventoDTO> eventos) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            for (EventoDTO evento : eventos) {
+                buffer.write(writer.writeValueAsBytes(evento));
+                buffer.write('\n');
+            }
+            Path pasta = arquivo.toAbsolutePath().getParent();
+            if (pasta != null) {
+                Files.createDirectories(pasta);
+            }
+            try (FileOutputStream out = new FileOutputStream(arquivo.toFile(), true)) {
+                buffer.writeTo(out);
+                out.getChannel().force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar eventos em " + arquivo, e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.config.CifraAesGcm;
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+// Número do cartão e código de segurança cifrados com AES-GCM (CifraAesGcm). O AAD é "tb_pagamento.<coluna>#<id>":
+// um valor copiado para outra coluna ou outra linha não decifra. tb_pagamento_arquivo guarda cópias das mesmas
+// linhas (mesmo id, valor copiado sem decifrar), por isso o AAD usa sempre tb_pagamento.
+// Quem cifra ao gravar é o CampoCriptografadoInterceptor (só ele conhece o id de um pagamento novo); as leituras
+// por projeção chegam cifradas e passam por abrir.
+// Sem chave configurada a aplicação não sobe (CifraAesGcm.dePropriedades).
+@Service
+public class CriptografiaService {
+
+    public static final String NUMERO_DO_CARTAO = "numero_do_cartao";
+    public static final String CODIGO_DE_SEGURANCA = "codigo_de_seguranca";
+
+    private static final String TABELA = "tb_pagamento";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private CifraAesGcm cifra;
+
+    private Counter textoPuroNumero;
+    private Counter textoPuroCodigo;
+
+    @PostConstruct
+    void iniciar() {
+        cifra = CifraAesGcm.dePropriedades(environment);
+        // linhas gravadas antes da criptografia: lidas como estão até a RecifragemService cifrá-las
+        textoPuroNumero = registry.counter("pagamento.criptografia.texto-puro", "coluna", NUMERO_DO_CARTAO);
+        textoPuroCodigo = registry.counter("pagamento.criptografia.texto-puro", "coluna", CODIGO_DE_SEGURANCA);
+    }
+
+    public String cifrar(String coluna, Long id, String texto) {
+        return cifra.cifrar(texto, aad(coluna, id));
+    }
+
+    // Valor sem o prefixo da chave é texto puro legado: volta como está e conta em pagamento.criptografia.texto-puro
+    public String decifrar(String coluna, Long id, String valor) {
+        if (valor == null) {
+            return null;
+        }
+        if (!cifra.cifrado(valor)) {
+            (NUMERO_DO_CARTAO.equals(coluna) ? textoPuroNumero : textoPuroCodigo).increment();
+            return valor;
+        }
+        return cifra.decifrar(valor, aad(coluna, id));
+    }
+
+    // DTO de uma projeção (cartão ainda cifrado) -> DTO com o cartão decifrado e a máscara calculada
+    public void abrir(PagamentoDTO dto) {
+        dto.abrirCartao(decifrar(NUMERO_DO_CARTAO, dto.getId(), dto.getNumeroDoCartao()),
+                decifrar(CODIGO_DE_SEGURANCA, dto.getId(), dto.getCodigoDeSeguranca()));
+    }
+
+    // false para texto puro e para valores de uma chave que não é mais a ativa (RecifragemService)
+    public boolean atualizado(String valor) {
+        return valor == null || cifra.cifradoComChaveAtiva(valor);
+    }
+
+    // HMAC com chave derivada da chave ativa, para o que só precisa ser comparado (IdempotenciaService)
+    public String impressao(byte[] dados) {
+        return cifra.impressao(dados);
+    }
+
+    public boolean confereImpressao(String impressao, byte[] dados) {
+        return cifra.confereImpressao(impressao, dados);
+    }
+
+    public String getIdChaveAtiva() {
+        return cifra.getIdChaveAtiva();
+    }
+
+    private static byte[] aad(String coluna, Long id) {
+        return (TABELA + "." + coluna + "#" + id).getBytes(StandardCharsets.UTF_8);
+    }
+}
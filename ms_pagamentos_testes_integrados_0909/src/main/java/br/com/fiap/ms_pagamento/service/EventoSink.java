@@ -0,0 +1,13 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.EventoDTO;
+
+import java.util.List;
+
+// Destino dos eventos do outbox (broker, arquivo, memória...).
+// Recebe lotes na ordem de gravação; só deve retornar depois que o lote inteiro estiver entregue -
+// se lançar exceção, o mesmo lote é entregue de novo (entrega at-least-once).
+public interface EventoSink {
+
+    void publicar(List<EventoDTO> eventos);
+}
@@ -0,0 +1,260 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Group commit do POST /pagamentos (opcional: pagamento.group-commit.enabled=true).
+// As requisições entram numa fila limitada; uma única thread junta o que chegou em até `janela`
+// (ou `lote` itens) e grava tudo numa só transação - um commit para o lote em vez de um por requisição.
+// Cada requisição espera o seu futuro, que termina com o pagamento gravado (e o id gerado) depois do commit.
+// Fila cheia por mais de `espera-fila`: 503 (backpressure). Se a transação do lote falhar, cada item é
+// gravado de novo na sua própria transação, para o erro de um não derrubar os outros.
+// Cada item passa de PENDENTE para GRAVANDO (writer) ou CANCELADO (timeout do chamador) por CAS: o 503 por
+// timeout só sai quando o item comprovadamente não vai ser gravado, senão um retry do cliente duplicaria o pagamento.
+@Service
+@ConditionalOnProperty(name = "pagamento.group-commit.enabled", havingValue = "true")
+public class GroupCommitWriter {
+
+    @Autowired
+    private PagamentoService service;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${pagamento.group-commit.capacidade:10000}")
+    private int capacidade;
+
+    @Value("${pagamento.group-commit.lote:200}")
+    private int tamanhoLote;
+
+    @Value("${pagamento.group-commit.janela:2ms}")
+    private Duration janela;
+
+    @Value("${pagamento.group-commit.espera-fila:100ms}")
+    private Duration esperaFila;
+
+    @Value("${pagamento.group-commit.timeout:10s}")
+    private Duration timeout;
+
+    private BlockingQueue<Pendente> fila;
+    private Thread writer;
+    private volatile boolean ativo;
+    private volatile boolean parar;
+    private DistributionSummary tamanhoDosLotes;
+
+    @PostConstruct
+    void iniciar() {
+        fila = new ArrayBlockingQueue<>(capacidade);
+        tamanhoDosLotes = DistributionSummary.builder("pagamento.group-commit.lote")
+                .description("Pagamentos gravados por transação")
+                .register(registry);
+        Gauge.builder("pagamento.group-commit.fila", fila, BlockingQueue::size)
+                .description("Pagamentos aguardando o próximo lote")
+                .register(registry);
+        ativo = true;
+        writer = new Thread(this::executar, "pagamento-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // para de aceitar e grava o que já está na fila antes de encerrar; o que sobrar depois do timeout falha
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        ativo = false;
+        writer.join(timeout.toMillis());
+        if (writer.isAlive()) {
+            parar = true;
+            writer.interrupt();
+            writer.join(timeout.toMillis());
+        }
+        falharPendentes();
+    }
+
+    public PagamentoDTO insert(PagamentoDTO dto) {
+        if (!ativo) {
+            throw new ServiceUnavailableException("Serviço encerrando, tente novamente");
+        }
+        Pendente pendente = new Pendente(dto);
+        try {
+            if (!fila.offer(pendente, esperaFila.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new ServiceUnavailableException("Fila de gravação cheia, tente novamente");
+            }
+            return pendente.resultado.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Gravação interrompida");
+        } catch (TimeoutException e) {
+            if (pendente.cancelar()) {
+                fila.remove(pendente);
+                throw new ServiceUnavailableException("Tempo de gravação esgotado, tente novamente");
+            }
+            // o writer já pegou o item: o resultado (gravado ou erro) é o que vale, e ele sempre completa o futuro
+            return aguardarGravacao(pendente);
+        } catch (ExecutionException e) {
+            throw causa(e);
+        }
+    }
+
+    private PagamentoDTO aguardarGravacao(Pendente pendente) {
+        boolean interrompido = false;
+        try {
+            while (true) {
+                try {
+                    return pendente.resultado.get();
+                } catch (InterruptedException e) {
+                    interrompido = true;
+                } catch (ExecutionException e) {
+                    throw causa(e);
+                }
+            }
+        } finally {
+            if (interrompido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static RuntimeException causa(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+            return cause;
+        }
+        return new IllegalStateException(e.getCause());
+    }
+
+    private void executar() {
+        try {
+            coletarEGravar();
+        } finally {
+            // interrompido ou encerrado: nenhum chamador fica esperando um item que não vai ser gravado
+            falharPendentes();
+        }
+    }
+
+    private void coletarEGravar() {
+        List<Pendente> lote = new ArrayList<>(tamanhoLote);
+        while (!parar && (ativo || !fila.isEmpty())) {
+            try {
+                Pendente primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                lote.add(primeiro);
+                long limite = System.nanoTime() + janela.toNanos();
+                while (lote.size() < tamanhoLote) {
+                    // o que já está na fila entra sem esperar; depois espera até o fim da janela
+                    if (fila.drainTo(lote, tamanhoLote - lote.size()) > 0) {
+                        continue;
+                    }
+                    long restante = limite - System.nanoTime();
+                    Pendente proximo = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : null;
+                    if (proximo == null) {
+                        break;
+                    }
+                    lote.add(proximo);
+                }
+                gravar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lote.forEach(Pendente::falharSeNaoGravado);
+                return;
+            } catch (RuntimeException e) {
+                lote.forEach(pendente -> pendente.resultado.completeExceptionally(e));
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void falharPendentes() {
+        List<Pendente> restantes = new ArrayList<>();
+        fila.drainTo(restantes);
+        restantes.forEach(Pendente::falharSeNaoGravado);
+    }
+
+    private void gravar(List<Pendente> coletados) {
+        // itens cancelados por timeout ficam de fora; os demais passam a GRAVANDO e não podem mais ser cancelados
+        List<Pendente> lote = coletados.stream().filter(Pendente::iniciarGravacao).toList();
+        if (lote.isEmpty()) {
+            return;
+        }
+        tamanhoDosLotes.record(lote.size());
+        try {
+            List<PagamentoDTO> gravados = transactionTemplate.execute(status -> {
+                List<PagamentoDTO> result = new ArrayList<>(lote.size());
+                for (Pendente pendente : lote) {
+                    result.add(service.insert(pendente.dto));
+                }
+                return result;
+            });
+            for (int i = 0; i < lote.size(); i++) {
+                lote.get(i).resultado.complete(gravados.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (lote.size() == 1) {
+                lote.get(0).resultado.completeExceptionally(e);
+                return;
+            }
+            // um item ruim não pode derrubar o lote inteiro: grava cada um isoladamente
+            for (Pendente pendente : lote) {
+                try {
+                    pendente.resultado.complete(service.insert(pendente.dto));
+                } catch (RuntimeException erro) {
+                    pendente.resultado.completeExceptionally(erro);
+                }
+            }
+        }
+    }
+
+    private static class Pendente {
+        private static final int PENDENTE = 0;
+        private static final int GRAVANDO = 1;
+        private static final int CANCELADO = 2;
+
+        private final PagamentoDTO dto;
+        private final CompletableFuture<PagamentoDTO> resultado = new CompletableFuture<>();
+        private final AtomicInteger estado = new AtomicInteger(PENDENTE);
+
+        private Pendente(PagamentoDTO dto) {
+            this.dto = dto;
+        }
+
+        private boolean iniciarGravacao() {
+            return estado.compareAndSet(PENDENTE, GRAVANDO);
+        }
+
+        private boolean cancelar() {
+            return estado.compareAndSet(PENDENTE, CANCELADO);
+        }
+
+        // só itens que nunca chegaram ao banco: um item em GRAVANDO é completado por gravar()
+        private void falharSeNaoGravado() {
+            if (cancelar()) {
+                resultado.completeExceptionally(new ServiceUnavailableException("Gravação não realizada, tente novamente"));
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.model.Idempotencia;
+import br.com.fiap.ms_pagamento.model.IdempotenciaId;
+import br.com.fiap.ms_pagamento.repository.IdempotenciaRepository;
+import br.com.fiap.ms_pagamento.service.exception.IdempotencyKeyInProgressException;
+import br.com.fiap.ms_pagamento.service.exception.IdempotencyKeyMismatchException;
+import br.com.fiap.ms_pagamento.service.exception.InvalidIdempotencyKeyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Idempotency-Key do POST /pagamentos.
+// Memória: mapa dividido em faixas (lock striping), cada chave guarda um future com a resposta -
+// requisições repetidas esperam a primeira terminar em vez de irem ao banco.
+// Banco (tb_idempotencia): a chave é gravada na mesma transação do pagamento e vale depois de
+// um restart ou em outra instância.
+// A chave vale por cliente (a mesma Idempotency-Key de dois clientes são duas chaves) e fica presa ao corpo da
+// requisição: repetir a chave com outro corpo é 422 (IdempotencyKeyMismatchException), não a resposta antiga.
+// Uma repetição que chega enquanto a primeira ainda grava espera no máximo pagamento.idempotencia.espera e
+// depois recebe 409 (IdempotencyKeyInProgressException).
+@Service
+public class IdempotenciaService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private static final int STRIPES = 64;
+
+    @Autowired
+    private IdempotenciaRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CriptografiaService criptografia;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // por quanto tempo uma chave gravada no banco é válida
+    @Value("${pagamento.idempotencia.ttl:24h}")
+    private Duration ttl;
+
+    // por quanto tempo a resposta fica também em memória
+    @Value("${pagamento.idempotencia.ttl-memoria:10m}")
+    private Duration memoryTtl;
+
+    // quanto uma repetição espera pela primeira requisição com a mesma chave
+    @Value("${pagamento.idempotencia.espera:10s}")
+    private Duration espera;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public IdempotenciaService() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public PagamentoDTO execute(String cliente, String chave, PagamentoDTO requisicao, Supplier<PagamentoDTO> acao) {
+        if (chave.isBlank() || chave.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key deve ter entre 1 e " + MAX_KEY_LENGTH + " caracteres");
+        }
+        if (cliente.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Identificação do cliente deve ter no máximo " + MAX_KEY_LENGTH + " caracteres");
+        }
+
+        IdempotenciaId id = new IdempotenciaId(cliente, chave);
+        byte[] corpo = corpo(requisicao);
+        String hash = criptografia.impressao(corpo);
+        Stripe stripe = stripeFor(id);
+        Entrada entrada;
+        boolean primeira = false;
+        stripe.lock.lock();
+        try {
+            entrada = stripe.entradas.get(id);
+            if (entrada == null || entrada.expirada(System.nanoTime())) {
+                entrada = new Entrada(hash, System.nanoTime() + memoryTtl.toNanos());
+                stripe.entradas.put(id, entrada);
+                primeira = true;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        if (!primeira) {
+            verificarHash(entrada.hash, hash, corpo);
+            return aguardar(entrada);
+        }
+        try {
+            PagamentoDTO dto = executeOnce(id, hash, corpo, acao);
+            entrada.resposta.complete(dto);
+            return dto;
+        } catch (RuntimeException e) {
+            // falhou: a chave fica livre para uma nova tentativa
+            remover(stripe, id, entrada);
+            entrada.resposta.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pagamento.idempotencia.limpeza-ms:600000}")
+    @Transactional
+    public void purgeExpired() {
+        long agora = System.nanoTime();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.entradas.values().removeIf(entrada -> entrada.expirada(agora));
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        repository.deleteByCriadoEmBefore(Instant.now().minus(ttl));
+    }
+
+    private PagamentoDTO executeOnce(IdempotenciaId id, String hash, byte[] corpo, Supplier<PagamentoDTO> acao) {
+        Optional<Idempotencia> salvo = repository.findById(id);
+        if (salvo.isPresent() && !expirado(salvo.get())) {
+            return respostaSalva(salvo.get(), hash, corpo);
+        }
+        try {
+            // pagamento e chave na mesma transação: ou os dois são gravados, ou nenhum
+            return transactionTemplate.execute(status -> {
+                salvo.ifPresent(expirado -> repository.deleteByClienteAndChave(id.getCliente(), id.getChave()));
+                PagamentoDTO dto = acao.get();
+                entityManager.persist(new Idempotencia(id.getCliente(), id.getChave(), hash, toJson(dto),
+                        Instant.now()));
+                return dto;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // outra instância gravou a mesma chave antes (a transação foi desfeita): devolve a resposta dela
+            return repository.findById(id).map(i -> respostaSalva(i, hash, corpo)).orElseThrow(() -> e);
+        }
+    }
+
+    private PagamentoDTO respostaSalva(Idempotencia salva, String hash, byte[] corpo) {
+        verificarHash(salva.getHashRequisicao(), hash, corpo);
+        return fromJson(salva.getResposta());
+    }
+
+    // hash diferente pode ser só outra chave (gravado antes de uma rotação): confere com a chave do original
+    private void verificarHash(String original, String hash, byte[] corpo) {
+        if (!original.equals(hash) && !criptografia.confereImpressao(original, corpo)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key já usada com outro corpo de requisição");
+        }
+    }
+
+    private PagamentoDTO aguardar(Entrada entrada) {
+        try {
+            return entrada.resposta.get(espera.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException("Requisição com a mesma Idempotency-Key ainda em andamento");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("Requisição com a mesma Idempotency-Key ainda em andamento");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void remover(Stripe stripe, IdempotenciaId id, Entrada entrada) {
+        stripe.lock.lock();
+        try {
+            stripe.entradas.remove(id, entrada);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private boolean expirado(Idempotencia idempotencia) {
+        return idempotencia.getCriadoEm().plus(ttl).isBefore(Instant.now());
+    }
+
+    private Stripe stripeFor(IdempotenciaId id) {
+        int hash = id.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    // O corpo como o Jackson o serializa (a ordem e a formatação do JSON recebido não mudam o hash) mais o número
+    // e o código de segurança, que são WRITE_ONLY e ficam fora do JSON: outro cartão com a mesma chave é 422.
+    // Com o cartão no hash, o hash gravado é um HMAC (CriptografiaService.impressao), não um SHA-256 que
+    // quem lê tb_idempotencia poderia testar contra os cartões possíveis
+    private byte[] corpo(PagamentoDTO requisicao) {
+        try {
+            return objectMapper.writeValueAsBytes(Arrays.asList(requisicao, requisicao.getNumeroDoCartao(),
+                    requisicao.getCodigoDeSeguranca()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao calcular o hash da requisição idempotente", e);
+        }
+    }
+
+    private String toJson(PagamentoDTO dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar a resposta idempotente", e);
+        }
+    }
+
+    private PagamentoDTO fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, PagamentoDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao ler a resposta idempotente", e);
+        }
+    }
+
+    private static class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<IdempotenciaId, Entrada> entradas = new HashMap<>();
+    }
+
+    private static class Entrada {
+        private final CompletableFuture<PagamentoDTO> resposta = new CompletableFuture<>();
+        private final String hash;
+        private final long expiraEmNanos;
+
+        private Entrada(String hash, long expiraEmNanos) {
+            this.hash = hash;
+            this.expiraEmNanos = expiraEmNanos;
+        }
+
+        // só expira depois de concluída: requisições em andamento nunca são descartadas
+        private boolean expirada(long agoraNanos) {
+            return resposta.isDone() && agoraNanos - expiraEmNanos > 0;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.EventoDTO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Sink local para testes e desenvolvimento: guarda os últimos eventos publicados em memória
+public class MemoriaEventoSink implements EventoSink {
+
+    private final int capacidade;
+    private final Deque<EventoDTO> eventos = new ArrayDeque<>();
+
+    public MemoriaEventoSink(int capacidade) {
+        this.capacidade = capacidade;
+    }
+
+    @Override
+    public synchronized void publicar(List<EventoDTO> lote) {
+        for (EventoDTO evento : lote) {
+            if (eventos.size() == capacidade) {
+                eventos.removeFirst();
+            }
+            eventos.addLast(evento);
+        }
+    }
+
+    public synchronized List<EventoDTO> getEventos() {
+        return new ArrayList<>(eventos);
+    }
+
+    public synchronized void limpar() {
+        eventos.clear();
+    }
+}
@@ -0,0 +1,162 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.EventoDTO;
+import br.com.fiap.ms_pagamento.model.EventoOutbox;
+import br.com.fiap.ms_pagamento.repository.EventoOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Publica o outbox em lotes. O lote é escolhido pela ordem de id, mas o id não segue a ordem de commit
+// (sequência com allocationSize 50): dentro de um pedido quem manda é a sequencia (OutboxService).
+// Antes de publicar, o lote ganha os eventos pendentes dos mesmos pedidos com sequencia menor que ficaram de fora,
+// e os eventos de cada pedido são postos em ordem de sequencia. Como a sequencia é dada no commit, um evento
+// nunca fica visível antes de outro do mesmo pedido com sequencia menor: nada sai fora de ordem.
+// At-least-once: o lote só é apagado depois que o EventoSink confirmou; se o sink falhar ou a aplicação
+// cair antes do DELETE, o lote é entregue de novo no próximo ciclo.
+// Deve rodar em uma única instância (pagamento.outbox.publicador.enabled=false nas demais) para a ordem por pedido valer.
+// Métricas: pagamento.outbox.pendentes, pagamento.outbox.atraso.maximo (idade do evento pendente mais antigo),
+// pagamento.outbox.atraso (gravação -> publicação), pagamento.outbox.publicados e pagamento.outbox.falhas.
+@Service
+@ConditionalOnProperty(name = "pagamento.outbox.publicador.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxPublisher {
+
+    @Autowired
+    private EventoOutboxRepository repository;
+
+    @Autowired
+    private EventoSink sink;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // eventos por lote (um SELECT, uma chamada ao sink e um DELETE)
+    @Value("${pagamento.outbox.lote:500}")
+    private int tamanhoLote;
+
+    private final AtomicLong pendentes = new AtomicLong();
+    private volatile Instant maisAntigo;
+
+    private Timer atraso;
+    private Counter publicados;
+    private Counter falhas;
+
+    @PostConstruct
+    void registrarMetricas() {
+        Gauge.builder("pagamento.outbox.pendentes", pendentes, AtomicLong::get)
+                .description("Eventos gravados e ainda não publicados")
+                .register(registry);
+        Gauge.builder("pagamento.outbox.atraso.maximo", this, publisher -> publisher.atrasoMaximoSegundos())
+                .description("Idade do evento pendente mais antigo")
+                .baseUnit("seconds")
+                .register(registry);
+        atraso = Timer.builder("pagamento.outbox.atraso")
+                .description("Tempo entre a gravação do evento e a publicação")
+                .publishPercentileHistogram()
+                .register(registry);
+        publicados = registry.counter("pagamento.outbox.publicados");
+        falhas = registry.counter("pagamento.outbox.falhas");
+    }
+
+    @Scheduled(fixedDelayString = "${pagamento.outbox.intervalo-ms:500}")
+    public void publicarPendentes() {
+        try {
+            while (publicarLote() >= tamanhoLote) {
+                // lote cheio: provavelmente há mais eventos, continua sem esperar o próximo ciclo
+            }
+        } finally {
+            atualizarPendentes();
+        }
+    }
+
+    // retorna quantos eventos foram publicados
+    int publicarLote() {
+        List<EventoOutbox> lote = transactionTemplate.execute(status ->
+                comAnteriores(repository.findLote(PageRequest.of(0, tamanhoLote))));
+        if (lote == null || lote.isEmpty()) {
+            return 0;
+        }
+        List<EventoDTO> eventos = ordenar(lote).stream().map(EventoDTO::new).toList();
+        try {
+            sink.publicar(eventos);
+        } catch (RuntimeException e) {
+            falhas.increment();
+            throw e;
+        }
+
+        Instant agora = Instant.now();
+        eventos.forEach(evento -> atraso.record(Duration.between(evento.getCriadoEm(), agora)));
+        List<Long> ids = eventos.stream().map(EventoDTO::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> repository.deleteAllByIdIn(ids));
+        publicados.increment(eventos.size());
+        return eventos.size();
+    }
+
+    private List<EventoOutbox> comAnteriores(List<EventoOutbox> lote) {
+        if (lote.isEmpty()) {
+            return lote;
+        }
+        Map<Long, Long> maiorSequencia = new HashMap<>();
+        lote.forEach(evento -> maiorSequencia.merge(evento.getPedidoId(), sequencia(evento), Math::max));
+        List<Long> ids = lote.stream().map(EventoOutbox::getId).toList();
+        List<EventoOutbox> resultado = new ArrayList<>(lote);
+        for (EventoOutbox pendente : repository.findPendentesDosPedidos(maiorSequencia.keySet(), ids)) {
+            if (sequencia(pendente) < maiorSequencia.get(pendente.getPedidoId())) {
+                resultado.add(pendente);
+            }
+        }
+        return resultado;
+    }
+
+    // Ordem de id, exceto entre eventos do mesmo pedido: esses ocupam as mesmas posições, em ordem de sequencia
+    static List<EventoOutbox> ordenar(List<EventoOutbox> eventos) {
+        List<EventoOutbox> porId = new ArrayList<>(eventos);
+        porId.sort(Comparator.comparing(EventoOutbox::getId));
+        Map<Long, Deque<EventoOutbox>> porPedido = new HashMap<>();
+        porId.stream()
+                .sorted(Comparator.comparing(OutboxPublisher::sequencia))
+                .forEach(evento -> porPedido.computeIfAbsent(evento.getPedidoId(), pedido -> new ArrayDeque<>())
+                        .addLast(evento));
+        return porId.stream().map(evento -> porPedido.get(evento.getPedidoId()).removeFirst()).toList();
+    }
+
+    // eventos gravados antes da coluna sequencia existir não têm sequência: ficam na frente
+    private static long sequencia(EventoOutbox evento) {
+        return evento.getSequencia() == null ? 0 : evento.getSequencia();
+    }
+
+    private void atualizarPendentes() {
+        transactionTemplate.executeWithoutResult(status -> {
+            pendentes.set(repository.count());
+            maisAntigo = repository.findCriadoEmMaisAntigo();
+        });
+    }
+
+    private double atrasoMaximoSegundos() {
+        Instant instante = maisAntigo;
+        return instante == null ? 0 : Duration.between(instante, Instant.now()).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,113 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.model.EventoOutbox;
+import br.com.fiap.ms_pagamento.model.Pagamento;
+import br.com.fiap.ms_pagamento.model.TipoEvento;
+import br.com.fiap.ms_pagamento.repository.EventoOutboxRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Grava os eventos de pagamento no outbox. MANDATORY: o evento só existe se a alteração do pagamento
+// for confirmada na mesma transação - chamado fora de uma transação, falha.
+// Ordem por pedido: o id do evento vem de uma sequência com allocationSize 50 (e cada instância tem seu bloco),
+// então dois eventos do mesmo pedido podem ter ids na ordem contrária à do commit. Por isso, logo antes do
+// commit, os eventos da transação recebem a próxima sequencia do pedido (tb_pedido_sequencia). A linha do
+// pedido fica travada até o commit: outra transação do mesmo pedido espera, e a sequencia segue a ordem de commit.
+// As linhas são travadas em ordem de pedidoId, o que evita deadlock entre transações com vários pedidos
+// (insertAll, deleteAll, group commit); a espera é só entre transações do mesmo pedido e dura até o commit.
+// Os ids dos eventos da transação ficam num recurso ligado a ela: o commit não procura no banco (sequencia IS NULL
+// não tem índice). Nada aqui usa savepoint - o GroupCommitWriter repete um lote que falhou em transações novas -,
+// então todo evento registrado na transação é confirmado ou desfeito junto com ela.
+@Service
+public class OutboxService {
+
+    @Autowired
+    private EventoOutboxRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEvento tipo, Pagamento entity) {
+        sequenciarNoCommit(repository.save(new EventoOutbox(null, tipo, entity.getId(), entity.getPedidoId(),
+                entity.getStatus(), entity.getValor(), entity.getFormaDePagamentoId(), Instant.now(), null)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEvento tipo, PagamentoDTO dto) {
+        sequenciarNoCommit(repository.save(new EventoOutbox(null, tipo, dto.getId(), dto.getPedidoId(),
+                dto.getStatus(), dto.getValor(), dto.getFormaDePagamentoId(), Instant.now(), null)));
+    }
+
+    // guarda o evento na lista da transação; a sincronização é registrada uma vez por transação
+    @SuppressWarnings("unchecked")
+    private void sequenciarNoCommit(EventoOutbox evento) {
+        Map<Long, List<Long>> porPedido = (Map<Long, List<Long>>) TransactionSynchronizationManager.getResource(this);
+        if (porPedido == null) {
+            Map<Long, List<Long>> daTransacao = new TreeMap<>();
+            porPedido = daTransacao;
+            TransactionSynchronizationManager.bindResource(this, daTransacao);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    sequenciar(daTransacao);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OutboxService.this);
+                }
+            });
+        }
+        porPedido.computeIfAbsent(evento.getPedidoId(), pedido -> new ArrayList<>()).add(evento.getId());
+    }
+
+    // porPedido em ordem de pedidoId (TreeMap) e, dentro do pedido, na ordem de registro
+    void sequenciar(Map<Long, List<Long>> porPedido) {
+        entityManager.flush();
+        List<Object[]> sequencias = new ArrayList<>();
+        porPedido.forEach((pedidoId, ids) -> {
+            long proxima = reservar(pedidoId, ids.size()) - ids.size() + 1;
+            for (Long id : ids) {
+                sequencias.add(new Object[]{proxima++, id});
+            }
+        });
+        jdbcTemplate.batchUpdate("UPDATE tb_evento_outbox SET sequencia = ? WHERE id = ?", sequencias);
+    }
+
+    // Soma quantidade à última sequência do pedido (travando a linha até o commit) e retorna o novo valor.
+    // Direto no JDBC: a chave duplicada de um INSERT concorrente não pode marcar a transação para rollback.
+    private long reservar(Long pedidoId, int quantidade) {
+        String incrementar = "UPDATE tb_pedido_sequencia SET ultimo = ultimo + ? WHERE pedido_id = ?";
+        if (jdbcTemplate.update(incrementar, quantidade, pedidoId) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO tb_pedido_sequencia (pedido_id, ultimo) VALUES (?, ?)",
+                        pedidoId, quantidade);
+                return quantidade;
+            } catch (DuplicateKeyException e) {
+                // outra transação criou a linha do pedido primeiro
+                jdbcTemplate.update(incrementar, quantidade, pedidoId);
+            }
+        }
+        return jdbcTemplate.queryForObject("SELECT ultimo FROM tb_pedido_sequencia WHERE pedido_id = ?",
+                Long.class, pedidoId);
+    }
+}
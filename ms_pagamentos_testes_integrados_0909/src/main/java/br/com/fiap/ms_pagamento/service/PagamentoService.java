@@ -1,20 +1,54 @@
 package br.com.fiap.ms_pagamento.service;
 
+import br.com.fiap.ms_pagamento.config.CacheConfiguration;
+import br.com.fiap.ms_pagamento.config.ReplicaRoutingDataSource;
+import br.com.fiap.ms_pagamento.dto.CursorPageDTO;
 import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.dto.PagamentoFilterDTO;
+import br.com.fiap.ms_pagamento.dto.ResumoDTO;
+import br.com.fiap.ms_pagamento.dto.StatusDTO;
 import br.com.fiap.ms_pagamento.model.Pagamento;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.model.TipoEvento;
+import br.com.fiap.ms_pagamento.repository.PagamentoArquivadoRepository;
 import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import br.com.fiap.ms_pagamento.service.exception.BatchValidationException;
 import br.com.fiap.ms_pagamento.service.exception.DatabaseException;
+import br.com.fiap.ms_pagamento.service.exception.PagamentoArquivadoException;
+import br.com.fiap.ms_pagamento.service.exception.PreconditionFailedException;
 import br.com.fiap.ms_pagamento.service.exception.ResourceNotFoundException;
+import br.com.fiap.ms_pagamento.service.exception.StatusTransitionException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Stream;
 
 @Service
 public class PagamentoService {
@@ -22,24 +56,163 @@ public class PagamentoService {
     @Autowired
     private PagamentoRepository repository;
 
-//    @Transactional(readOnly = true)
-//    public Page<PagamentoDTO> findAll(Pageable pageable){
-//        Page<Pagamento> page = repository.findAll(pageable);
-//        return page.map(PagamentoDTO::new);
-//    }
+    // pagamentos encerrados e antigos saem de tb_pagamento (ArquivamentoService); as leituras por id caem no arquivo
+    @Autowired
+    private PagamentoArquivadoRepository arquivadoRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ResumoService resumoService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    // as projeções trazem o cartão cifrado; abrir decifra antes de devolver
+    @Autowired
+    private CriptografiaService criptografia;
+
+    // tamanho máximo de página aceito na listagem
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // a cada quantas linhas a exportação faz flush do OutputStream
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
+    // quantidade máxima de pagamentos por requisição de lote
+    public static final int MAX_BATCH_SIZE = 5000;
+
+    // deve acompanhar spring.jpa.properties.hibernate.jdbc.batch_size
+    private static final int JDBC_BATCH_SIZE = 50;
+
+    // ids por consulta ... IN (exclusão em massa e busca por vários pedidos) - mantém a lista do IN e o plano pequenos
+    private static final int IN_CHUNK_SIZE = 500;
+
+    // quantidade máxima de pedidos por consulta em GET /pagamentos/pedido
+    public static final int MAX_PEDIDO_IDS = 1000;
 
     @Transactional(readOnly = true)
-    public List<PagamentoDTO> findAll(){
-        return repository.findAll().stream().map(PagamentoDTO::new).collect(Collectors.toList());
+    public CursorPageDTO<PagamentoDTO> findAll(Long cursor, int size, PagamentoFilterDTO filtro){
+        int limite = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // busca um registro a mais só para saber se existe próxima página
+        List<PagamentoDTO> result = repository.findPage(cursor, filtro.getStatus(), filtro.getPedidoId(),
+                filtro.getFormaDePagamentoId(), filtro.getValorMin(), filtro.getValorMax(),
+                PageRequest.of(0, limite + 1));
+
+        boolean hasNext = result.size() > limite;
+        List<PagamentoDTO> content = hasNext ? result.subList(0, limite) : result;
+        content.forEach(criptografia::abrir);
+        Long nextCursor = hasNext ? content.get(content.size() - 1).getId() : null;
+        return new CursorPageDTO<>(content, nextCursor);
+    }
+
+    // Exportação NDJSON (um JSON por linha) direto do cursor do banco para o OutputStream.
+    // A projeção não guarda nada no contexto de persistência, o uso de heap fica constante.
+    @Transactional(readOnly = true)
+    public void exportAll(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(PagamentoDTO.class);
+        try (Stream<PagamentoDTO> stream = repository.streamAll()) {
+            Iterator<PagamentoDTO> iterator = stream.iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                PagamentoDTO dto = iterator.next();
+                criptografia.abrir(dto);
+                out.write(writer.writeValueAsBytes(dto));
+                out.write('\n');
+                if (++count % EXPORT_CHUNK_SIZE == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        }
     }
 
+    // Do primário: o resultado vai para o cache "pagamentos" (e o da consulta para o cache de consultas)
+    @Cacheable(cacheNames = CacheConfiguration.PAGAMENTOS, key = "#id")
     @Transactional(readOnly = true)
     public PagamentoDTO findById(Long id){
-        Pagamento entity = repository.findById(id).orElseThrow(
-                () -> new ResourceNotFoundException("Recurso não encontrado! Id: " + id)
-        ) ;
+        ReplicaRoutingDataSource.lerDoPrimario();
+        PagamentoDTO dto = repository.findDtoById(id)
+                .or(() -> arquivadoRepository.findDtoById(id))
+                .orElseThrow(() -> new ResourceNotFoundException("Recurso não encontrado! Id: " + id));
+        criptografia.abrir(dto);
+        return dto;
+    }
+
+    // Totais em memória (ResumoService), sem consulta ao banco
+    public ResumoDTO resumo(){
+        return resumoService.resumo();
+    }
+
+    // Pagamentos do pedido nas duas tabelas: um pedido antigo pode ter parte dos pagamentos já arquivada
+    @Transactional(readOnly = true)
+    public List<PagamentoDTO> findByPedidoId(Long pedidoId, Status status){
+        // consultas em cache: do primário, como findById
+        ReplicaRoutingDataSource.lerDoPrimario();
+        List<PagamentoDTO> result = comArquivados(repository.findByPedidoId(pedidoId, status),
+                arquivadoRepository.findByPedidoId(pedidoId, status), Comparator.comparing(PagamentoDTO::getId));
+        result.forEach(criptografia::abrir);
+        return result;
+    }
+
+    // Pagamentos de vários pedidos (inclusive arquivados), ordenados por pedido e id - um SELECT ... IN em cada
+    // tabela a cada IN_CHUNK_SIZE pedidos
+    @Transactional(readOnly = true)
+    public List<PagamentoDTO> findByPedidoIds(List<Long> pedidoIds, Status status){
+        BatchValidationException exception = new BatchValidationException("Dados inválidos");
+        if (pedidoIds == null || pedidoIds.isEmpty()) {
+            exception.addError("pedidoIds", "Informe ao menos um pedido");
+        } else if (pedidoIds.size() > MAX_PEDIDO_IDS) {
+            exception.addError("pedidoIds", "Informe no máximo " + MAX_PEDIDO_IDS + " pedidos");
+        }
+        if (exception.hasErrors()) {
+            throw exception;
+        }
+
+        ReplicaRoutingDataSource.lerDoPrimario();
+        List<Long> distintos = new ArrayList<>(new TreeSet<>(pedidoIds));
+        List<PagamentoDTO> result = new ArrayList<>();
+        for (int i = 0; i < distintos.size(); i += IN_CHUNK_SIZE) {
+            List<Long> chunk = distintos.subList(i, Math.min(i + IN_CHUNK_SIZE, distintos.size()));
+            result.addAll(comArquivados(repository.findByPedidoIdIn(chunk, status),
+                    arquivadoRepository.findByPedidoIdIn(chunk, status),
+                    Comparator.comparing(PagamentoDTO::getPedidoId).thenComparing(PagamentoDTO::getId)));
+        }
+        result.forEach(criptografia::abrir);
+        return result;
+    }
+
+    // A tabela quente é lida antes do arquivo: um lote arquivado entre as duas leituras aparece nas duas
+    // (e fica uma vez só, pelo id), nunca em nenhuma
+    private static List<PagamentoDTO> comArquivados(List<PagamentoDTO> quentes, List<PagamentoDTO> arquivados,
+                                                    Comparator<PagamentoDTO> ordem) {
+        if (arquivados.isEmpty()) {
+            return quentes;
+        }
+        Map<Long, PagamentoDTO> porId = new LinkedHashMap<>();
+        quentes.forEach(dto -> porId.put(dto.getId(), dto));
+        arquivados.forEach(dto -> porId.putIfAbsent(dto.getId(), dto));
+        List<PagamentoDTO> result = new ArrayList<>(porId.values());
+        result.sort(ordem);
+        return result;
+    }
 
-        return new PagamentoDTO(entity);
+    // Versão atual do pagamento, para o If-None-Match de GET /pagamentos/{id}
+    @Transactional(readOnly = true)
+    public Long findVersao(Long id){
+        ReplicaRoutingDataSource.lerDoPrimario();
+        return repository.findVersaoById(id)
+                .or(() -> arquivadoRepository.findVersaoById(id))
+                .orElseThrow(() -> new ResourceNotFoundException("Recurso não encontrado! Id: " + id));
     }
 
     @Transactional
@@ -47,34 +220,192 @@ public class PagamentoService {
         Pagamento entity = new Pagamento();
         copyDtoToEntity(dto, entity);
         entity = repository.save(entity);
-        return new PagamentoDTO(entity);
+        resumoService.adicionar(entity.getStatus(), entity.getFormaDePagamentoId(), entity.getValor());
+        outboxService.registrar(TipoEvento.PAGAMENTO_CRIADO, entity);
+        return resposta(entity, dto);
+    }
+
+    // Inserção em lote: valida todos os itens antes de gravar e envia os INSERTs em batches JDBC
+    @Transactional
+    public List<PagamentoDTO> insertAll(List<PagamentoDTO> dtos){
+        validateBatch(dtos);
+
+        List<PagamentoDTO> result = new ArrayList<>(dtos.size());
+        List<Pagamento> chunk = new ArrayList<>(JDBC_BATCH_SIZE);
+        for (PagamentoDTO dto : dtos) {
+            Pagamento entity = new Pagamento();
+            copyDtoToEntity(dto, entity);
+            chunk.add(entity);
+            if (chunk.size() == JDBC_BATCH_SIZE) {
+                flushChunk(chunk, dtos, result);
+            }
+        }
+        flushChunk(chunk, dtos, result);
+        return result;
     }
 
+    // Concorrência otimista: versaoEsperada (If-Match) é comparada com a versão carregada e o UPDATE
+    // leva "WHERE versao = ?" - quem perde a corrida recebe 412 (com If-Match) ou 409, sem lock de linha.
+    @CacheEvict(cacheNames = CacheConfiguration.PAGAMENTOS, key = "#id")
     @Transactional
-    public PagamentoDTO update (Long id, PagamentoDTO dto){
+    public PagamentoDTO update (Long id, PagamentoDTO dto, Long versaoEsperada){
         try{
             Pagamento entity = repository.getReferenceById(id);
+            if (versaoEsperada != null && !versaoEsperada.equals(entity.getVersao())) {
+                throw new PreconditionFailedException("Pagamento foi alterado (versão atual " + entity.getVersao() + ")! Id: " + id);
+            }
+            resumoService.remover(entity.getStatus(), entity.getFormaDePagamentoId(), entity.getValor());
             copyDtoToEntity(dto, entity);
-            entity = repository.save(entity);
-            return new PagamentoDTO(entity);
+            // flush aqui para a versão nova voltar no DTO (ETag) e o conflito aparecer dentro deste método
+            entity = repository.saveAndFlush(entity);
+            resumoService.adicionar(entity.getStatus(), entity.getFormaDePagamentoId(), entity.getValor());
+            outboxService.registrar(TipoEvento.PAGAMENTO_ATUALIZADO, entity);
+            return resposta(entity, dto);
         } catch (EntityNotFoundException e){
-            throw new ResourceNotFoundException("Recurso não encontrado! Id: " + id);
+            throw naoEncontrado(id);
+        } catch (OptimisticLockingFailureException e){
+            if (versaoEsperada != null) {
+                throw new PreconditionFailedException("Pagamento foi alterado por outra requisição! Id: " + id);
+            }
+            throw e;
+        }
+    }
+
+    // PATCH de status: um único UPDATE condicional (CRIADO -> novo status) que já devolve a linha, sem SELECT
+    @CacheEvict(cacheNames = CacheConfiguration.PAGAMENTOS, key = "#id")
+    @Transactional
+    public void updateStatus(Long id, StatusDTO dto){
+        Status novoStatus = dto.getStatus();
+        if (!Status.CRIADO.permiteTransicaoPara(novoStatus)) {
+            throw new StatusTransitionException("Transição de status inválida: CRIADO -> " + novoStatus);
         }
+        Optional<PagamentoDTO> atualizado = repository.updateStatusReturning(id, Status.CRIADO, novoStatus,
+                Instant.now());
+        if (atualizado.isEmpty()) {
+            // só no caso de falha consulta de novo para diferenciar 404 de 409
+            if (!repository.existsById(id)) {
+                throw naoEncontrado(id);
+            }
+            throw new StatusTransitionException("Pagamento não está com status CRIADO! Id: " + id);
+        }
+        // a linha devolvida pelo UPDATE move o pagamento no resumo e vira o evento
+        PagamentoDTO atual = atualizado.get();
+        resumoService.remover(Status.CRIADO, atual.getFormaDePagamentoId(), atual.getValor());
+        resumoService.adicionar(novoStatus, atual.getFormaDePagamentoId(), atual.getValor());
+        outboxService.registrar(TipoEvento.STATUS_ALTERADO, atual);
     }
 
+    // Um DELETE que devolve a linha excluída (valores para o resumo e o evento); nenhuma linha = pagamento inexistente
+    @CacheEvict(cacheNames = CacheConfiguration.PAGAMENTOS, key = "#id")
     @Transactional
     public void delete(Long id){
-        if(! repository.existsById(id)){
-            throw new ResourceNotFoundException("Recurso não encontrado! Id: " + id);
+        List<PagamentoDTO> linhas;
+        try{
+            linhas = repository.deleteAllReturning(List.of(id));
+        } catch (DataIntegrityViolationException e){
+            throw new DatabaseException("Falha de integridade referencial");
+        }
+        if (linhas.isEmpty()) {
+            throw naoEncontrado(id);
         }
+        linhas.forEach(this::registrarExclusao);
+    }
+
+    // Fora de tb_pagamento: 409 se está no arquivo (existe, o GET o devolve, mas é só leitura), senão 404
+    private RuntimeException naoEncontrado(Long id) {
+        if (arquivadoRepository.existsById(id)) {
+            return new PagamentoArquivadoException("Pagamento arquivado não pode ser alterado! Id: " + id);
+        }
+        return new ResourceNotFoundException("Recurso não encontrado! Id: " + id);
+    }
+
+    // Exclusão em massa em blocos de DELETE ... IN; ids inexistentes e arquivados são ignorados.
+    // Retorna quantos pagamentos foram de fato excluídos.
+    @Transactional
+    public int deleteAll(List<Long> ids){
+        BatchValidationException exception = new BatchValidationException("Dados inválidos");
+        if (ids == null || ids.isEmpty()) {
+            exception.addError("ids", "Informe ao menos um id");
+        } else if (ids.size() > MAX_BATCH_SIZE) {
+            exception.addError("ids", "Informe no máximo " + MAX_BATCH_SIZE + " ids");
+        }
+        if (exception.hasErrors()) {
+            throw exception;
+        }
+
+        List<Long> distintos = new ArrayList<>(new LinkedHashSet<>(ids));
+        Cache cache = cacheManager.getCache(CacheConfiguration.PAGAMENTOS);
+        int removidos = 0;
         try{
-            repository.deleteById(id);
+            for (int i = 0; i < distintos.size(); i += IN_CHUNK_SIZE) {
+                List<Long> chunk = distintos.subList(i, Math.min(i + IN_CHUNK_SIZE, distintos.size()));
+                List<PagamentoDTO> linhas = repository.deleteAllReturning(chunk);
+                removidos += linhas.size();
+                linhas.forEach(this::registrarExclusao);
+                if (cache != null) {
+                    chunk.forEach(cache::evict);
+                }
+            }
         } catch (DataIntegrityViolationException e){
             throw new DatabaseException("Falha de integridade referencial");
         }
+        return removidos;
+    }
+
+    private void registrarExclusao(PagamentoDTO dto) {
+        resumoService.remover(dto.getStatus(), dto.getFormaDePagamentoId(), dto.getValor());
+        outboxService.registrar(TipoEvento.PAGAMENTO_EXCLUIDO, dto);
+    }
+
+    private void validateBatch(List<PagamentoDTO> dtos) {
+        BatchValidationException exception = new BatchValidationException("Dados inválidos");
+        if (dtos == null || dtos.isEmpty()) {
+            exception.addError("pagamentos", "O lote deve ter ao menos um pagamento");
+        } else if (dtos.size() > MAX_BATCH_SIZE) {
+            exception.addError("pagamentos", "O lote deve ter no máximo " + MAX_BATCH_SIZE + " pagamentos");
+        } else {
+            for (int i = 0; i < dtos.size(); i++) {
+                // "null" no array JSON: erro do item, não IllegalArgumentException do validator (500)
+                if (dtos.get(i) == null) {
+                    exception.addError("[" + i + "]", "O pagamento não pode ser nulo");
+                    continue;
+                }
+                for (ConstraintViolation<PagamentoDTO> violation : validator.validate(dtos.get(i))) {
+                    exception.addError("[" + i + "]." + violation.getPropertyPath(), violation.getMessage());
+                }
+            }
+        }
+        if (exception.hasErrors()) {
+            throw exception;
+        }
+    }
+
+    // grava um bloco (um batch JDBC de pagamentos e outro de eventos) e libera as entidades do contexto de persistência
+    private void flushChunk(List<Pagamento> chunk, List<PagamentoDTO> dtos, List<PagamentoDTO> result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        repository.saveAll(chunk);
+        for (Pagamento entity : chunk) {
+            resumoService.adicionar(entity.getStatus(), entity.getFormaDePagamentoId(), entity.getValor());
+            outboxService.registrar(TipoEvento.PAGAMENTO_CRIADO, entity);
+            // result e dtos andam juntos: o item result.size() é o dto de origem desta entidade
+            result.add(resposta(entity, dtos.get(result.size())));
+        }
+        repository.flush();
+        entityManager.clear();
+        chunk.clear();
+    }
+
+    // depois do save a entidade tem o cartão cifrado; a resposta usa o texto puro que veio na requisição
+    private PagamentoDTO resposta(Pagamento entity, PagamentoDTO dto) {
+        PagamentoDTO resposta = new PagamentoDTO(entity);
+        resposta.abrirCartao(dto.getNumeroDoCartao(), dto.getCodigoDeSeguranca());
+        return resposta;
     }
 
-    private void copyDtoToEntity(PagamentoDTO dto, Pagamento entity) {
+    // package-private para o benchmark (módulo benchmarks)
+    void copyDtoToEntity(PagamentoDTO dto, Pagamento entity) {
         entity.setValor(dto.getValor());
         entity.setNome(dto.getNome());
         entity.setNumeroDoCartao(dto.getNumeroDoCartao());
@@ -0,0 +1,125 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.CartaoCifradoDTO;
+import br.com.fiap.ms_pagamento.repository.PagamentoArquivadoRepository;
+import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Cifra com a chave ativa o cartão das linhas gravadas em texto puro (antes da criptografia) ou com uma chave
+// antiga (rotação), em tb_pagamento e tb_pagamento_arquivo. Roda logo na subida e depois a cada intervalo;
+// quando não há nada a recifrar cada execução é uma leitura por faixa de id, sem escrita.
+// Lotes em transações curtas (SELECT ... FOR UPDATE + um UPDATE por linha), avançando por id como o
+// ArquivamentoService. Enquanto uma linha não é recifrada a leitura devolve o texto puro e conta em
+// pagamento.criptografia.texto-puro - com a métrica zerada e pagamento.criptografia.recifrados parado,
+// a migração terminou e uma chave antiga pode sair da configuração.
+@Service
+@ConditionalOnProperty(name = "pagamento.recifragem.enabled", havingValue = "true", matchIfMissing = true)
+public class RecifragemService {
+
+    @Autowired
+    private PagamentoRepository repository;
+
+    @Autowired
+    private PagamentoArquivadoRepository arquivadoRepository;
+
+    @Autowired
+    private CriptografiaService criptografia;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${pagamento.recifragem.lote:500}")
+    private int tamanhoLote;
+
+    @Value("${pagamento.recifragem.max-lotes:200}")
+    private int maxLotes;
+
+    private Counter recifrados;
+
+    @PostConstruct
+    void registrarMetricas() {
+        recifrados = registry.counter("pagamento.criptografia.recifrados");
+    }
+
+    @Scheduled(fixedDelayString = "${pagamento.recifragem.intervalo-ms:3600000}",
+            initialDelayString = "${pagamento.recifragem.atraso-inicial-ms:0}")
+    public int recifrar() {
+        String prefixo = criptografia.getIdChaveAtiva() + ":%";
+        int total = recifrar(prefixo, new Tabela() {
+            public List<CartaoCifradoDTO> proximoLote(long cursor) {
+                return repository.findCartoesParaRecifrar(cursor, prefixo, PageRequest.of(0, tamanhoLote));
+            }
+
+            public void gravar(Long id, String numero, String codigo) {
+                repository.updateCartao(id, numero, codigo);
+            }
+        });
+        return total + recifrar(prefixo, new Tabela() {
+            public List<CartaoCifradoDTO> proximoLote(long cursor) {
+                return arquivadoRepository.findCartoesParaRecifrar(cursor, prefixo, PageRequest.of(0, tamanhoLote));
+            }
+
+            public void gravar(Long id, String numero, String codigo) {
+                arquivadoRepository.updateCartao(id, numero, codigo);
+            }
+        });
+    }
+
+    private int recifrar(String prefixo, Tabela tabela) {
+        long cursor = 0;
+        int total = 0;
+        for (int i = 0; i < maxLotes; i++) {
+            long inicio = cursor;
+            List<CartaoCifradoDTO> lote = transactionTemplate.execute(status -> recifrarLote(tabela, inicio));
+            if (lote == null || lote.isEmpty()) {
+                break;
+            }
+            // só depois do commit: um lote desfeito não conta
+            recifrados.increment(lote.size());
+            total += lote.size();
+            cursor = lote.get(lote.size() - 1).getId();
+            if (lote.size() < tamanhoLote) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private List<CartaoCifradoDTO> recifrarLote(Tabela tabela, long cursor) {
+        List<CartaoCifradoDTO> lote = tabela.proximoLote(cursor);
+        for (CartaoCifradoDTO linha : lote) {
+            tabela.gravar(linha.getId(),
+                    recifrar(CriptografiaService.NUMERO_DO_CARTAO, linha.getId(), linha.getNumeroDoCartao()),
+                    recifrar(CriptografiaService.CODIGO_DE_SEGURANCA, linha.getId(), linha.getCodigoDeSeguranca()));
+        }
+        return lote;
+    }
+
+    private String recifrar(String coluna, Long id, String valor) {
+        if (criptografia.atualizado(valor)) {
+            return valor;
+        }
+        return criptografia.cifrar(coluna, id, criptografia.decifrar(coluna, id, valor));
+    }
+
+    private interface Tabela {
+
+        List<CartaoCifradoDTO> proximoLote(long cursor);
+
+        void gravar(Long id, String numero, String codigo);
+    }
+}
@@ -0,0 +1,138 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.ResumoDTO;
+import br.com.fiap.ms_pagamento.dto.ResumoLinhaDTO;
+import br.com.fiap.ms_pagamento.dto.ResumoTotalDTO;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.repository.PagamentoArquivadoRepository;
+import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Totais de GET /pagamentos/resumo (quantidade e soma de valor por status e por forma de pagamento).
+// Carregados uma vez com GROUP BY na subida da aplicação, antes do servidor aceitar requisições;
+// depois o PagamentoService informa cada alteração e o delta é aplicado só após o commit.
+// Contadores em LongAdder (valor em centavos): escritas concorrentes não disputam a mesma variável.
+// Os totais são desta instância - alterações feitas direto no banco ou por outra instância não aparecem.
+@Service
+public class ResumoService implements SmartInitializingSingleton {
+
+    @Autowired
+    private PagamentoRepository repository;
+
+    @Autowired
+    private PagamentoArquivadoRepository arquivadoRepository;
+
+    private final Map<Status, Contador> porStatus = new EnumMap<>(Status.class);
+    private final Map<Long, Contador> porForma = new ConcurrentHashMap<>();
+
+    public ResumoService() {
+        for (Status status : Status.values()) {
+            porStatus.put(status, new Contador());
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (ResumoLinhaDTO linha : repository.groupByStatusAndForma()) {
+            aplicar(linha, 1);
+        }
+        // o arquivamento só move linhas de tabela: os totais continuam contando os pagamentos arquivados
+        for (ResumoLinhaDTO linha : arquivadoRepository.groupByStatusAndForma()) {
+            aplicar(linha, 1);
+        }
+    }
+
+    public ResumoDTO resumo() {
+        long quantidade = 0;
+        long centavos = 0;
+        Map<Status, ResumoTotalDTO> status = new EnumMap<>(Status.class);
+        for (Map.Entry<Status, Contador> entry : porStatus.entrySet()) {
+            ResumoTotalDTO total = entry.getValue().total();
+            status.put(entry.getKey(), total);
+            quantidade += entry.getValue().quantidade.sum();
+            centavos += entry.getValue().centavos.sum();
+        }
+        Map<Long, ResumoTotalDTO> formas = new TreeMap<>();
+        porForma.forEach((forma, contador) -> {
+            ResumoTotalDTO total = contador.total();
+            if (total.getQuantidade() != 0) {
+                formas.put(forma, total);
+            }
+        });
+        return new ResumoDTO(new ResumoTotalDTO(quantidade, BigDecimal.valueOf(centavos, 2)), status, formas);
+    }
+
+    public void adicionar(Status status, Long formaDePagamentoId, BigDecimal valor) {
+        registrar(new ResumoLinhaDTO(status, formaDePagamentoId, 1L, valor), 1);
+    }
+
+    public void remover(Status status, Long formaDePagamentoId, BigDecimal valor) {
+        registrar(new ResumoLinhaDTO(status, formaDePagamentoId, 1L, valor), -1);
+    }
+
+    // dentro de uma transação o delta espera o commit (rollback não altera os totais)
+    @SuppressWarnings("unchecked")
+    private void registrar(ResumoLinhaDTO linha, int sinal) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            aplicar(linha, sinal);
+            return;
+        }
+        List<Delta> pendentes = (List<Delta>) TransactionSynchronizationManager.getResource(this);
+        if (pendentes == null) {
+            List<Delta> novos = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, novos);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ResumoService.this);
+                    if (status == STATUS_COMMITTED) {
+                        novos.forEach(delta -> aplicar(delta.linha, delta.sinal));
+                    }
+                }
+            });
+            pendentes = novos;
+        }
+        pendentes.add(new Delta(linha, sinal));
+    }
+
+    private void aplicar(ResumoLinhaDTO linha, int sinal) {
+        long quantidade = sinal * linha.getQuantidade();
+        long centavos = sinal * toCentavos(linha.getValor());
+        Contador status = porStatus.get(linha.getStatus());
+        status.quantidade.add(quantidade);
+        status.centavos.add(centavos);
+        Contador forma = porForma.computeIfAbsent(linha.getFormaDePagamentoId(), id -> new Contador());
+        forma.quantidade.add(quantidade);
+        forma.centavos.add(centavos);
+    }
+
+    private static long toCentavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    private static class Contador {
+        private final LongAdder quantidade = new LongAdder();
+        private final LongAdder centavos = new LongAdder();
+
+        private ResumoTotalDTO total() {
+            return new ResumoTotalDTO(quantidade.sum(), BigDecimal.valueOf(centavos.sum(), 2));
+        }
+    }
+
+    private record Delta(ResumoLinhaDTO linha, int sinal) {
+    }
+}
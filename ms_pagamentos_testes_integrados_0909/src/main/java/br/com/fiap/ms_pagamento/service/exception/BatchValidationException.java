@@ -0,0 +1,26 @@
+package br.com.fiap.ms_pagamento.service.exception;
+
+import br.com.fiap.ms_pagamento.dto.FieldMessageDTO;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Erros de validação de um lote - cada campo vem prefixado com a posição do item, ex.: [3].valor
+@Getter
+public class BatchValidationException extends RuntimeException {
+
+    private final List<FieldMessageDTO> errors = new ArrayList<>();
+
+    public BatchValidationException(String msg) {
+        super(msg);
+    }
+
+    public void addError(String fieldName, String message) {
+        errors.add(new FieldMessageDTO(fieldName, message));
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
@@ -0,0 +1,9 @@
+package br.com.fiap.ms_pagamento.service.exception;
+
+// A primeira requisição com a mesma Idempotency-Key ainda não terminou dentro da espera - 409, o cliente repete depois
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    public IdempotencyKeyInProgressException(String msg) {
+        super(msg);
+    }
+}
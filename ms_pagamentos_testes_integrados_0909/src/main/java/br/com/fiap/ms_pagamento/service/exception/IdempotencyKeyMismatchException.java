@@ -0,0 +1,9 @@
+package br.com.fiap.ms_pagamento.service.exception;
+
+// Idempotency-Key já usada pelo mesmo cliente com outro corpo de requisição - 422
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.fiap.ms_pagamento.service.exception;
+
+public class InvalidIdempotencyKeyException extends RuntimeException {
+
+    public InvalidIdempotencyKeyException(String msg) {
+        super(msg);
+    }
+}
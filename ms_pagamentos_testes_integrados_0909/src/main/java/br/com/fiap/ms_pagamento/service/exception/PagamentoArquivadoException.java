@@ -0,0 +1,9 @@
+package br.com.fiap.ms_pagamento.service.exception;
+
+// Alteração ou exclusão de um pagamento arquivado: ele existe (o GET o encontra), mas o arquivo é só leitura
+public class PagamentoArquivadoException extends RuntimeException {
+
+    public PagamentoArquivadoException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,9 @@
+package br.com.fiap.ms_pagamento.service.exception;
+
+// If-Match não corresponde à versão atual do pagamento
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String msg) {
+        super(msg);
+    }
+}
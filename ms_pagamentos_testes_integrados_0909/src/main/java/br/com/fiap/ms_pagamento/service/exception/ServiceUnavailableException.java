@@ -0,0 +1,9 @@
+package br.com.fiap.ms_pagamento.service.exception;
+
+// Serviço sobrecarregado (fila cheia ou tempo de espera esgotado) - o cliente deve tentar de novo mais tarde
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String msg) {
+        super(msg);
+    }
+}
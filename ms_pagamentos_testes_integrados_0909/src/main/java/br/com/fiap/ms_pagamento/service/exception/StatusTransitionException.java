@@ -0,0 +1,9 @@
+package br.com.fiap.ms_pagamento.service.exception;
+
+// Transição de status não permitida ou pagamento já fora do status esperado
+public class StatusTransitionException extends RuntimeException {
+
+    public StatusTransitionException(String msg) {
+        super(msg);
+    }
+}
@@ -1,7 +1,11 @@
-INSERT INTO tb_pagamento(valor, nome, numero_do_cartao, validade, codigo_de_seguranca, status, pedido_id, forma_de_pagamento_id) VALUES(1200, 'Nicodemus C Souza', '1234567890123456', '12/30', '352', 'CRIADO', 1, 2);
-INSERT INTO tb_pagamento(valor, nome, numero_do_cartao, validade, codigo_de_seguranca, status, pedido_id, forma_de_pagamento_id) VALUES(500.50, 'Amadeus Mozart',  '8597452369851245', '05/28', '647', 'CRIADO', 5, 2);
-INSERT INTO tb_pagamento(valor, nome, numero_do_cartao, validade, codigo_de_seguranca, status, pedido_id, forma_de_pagamento_id) VALUES(1200, 'Maria Joaquina',    '2457896547123654', '01/25', '543', 'CRIADO', 3, 2);
+-- cartoes cifrados (AES-GCM, AAD tb_pagamento.<coluna>#<id>) com a chave descartavel do perfil test
+INSERT INTO tb_pagamento(id, valor, nome, numero_do_cartao, validade, codigo_de_seguranca, status, pedido_id, forma_de_pagamento_id, versao, criado_em, atualizado_em) VALUES(1, 1200, 'Nicodemus C Souza', 'k1:Pqi5W1mdlZkpGjtcV2uG9UitAaxF2vdvF/jt0K+jp9vCM/Vz0NG/NWXDNvs=', '12/30', 'k1:cpAtSwOgXo431fALEeVn0YpujdGuyqn7g7+GJplt/Q==', 'CRIADO', 1, 2, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+INSERT INTO tb_pagamento(id, valor, nome, numero_do_cartao, validade, codigo_de_seguranca, status, pedido_id, forma_de_pagamento_id, versao, criado_em, atualizado_em) VALUES(2, 500.50, 'Amadeus Mozart',  'k1:gOscvOoj1a5PKoenqAAaIUu7sb8gzNzHH1UWAHg1Ag6Papsr6qtoGC5vokc=', '05/28', 'k1:vRQyZmjqWIAG3Wiaxm+a6a/VJUx4RQnX2nvToGzvJw==', 'CRIADO', 5, 2, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+INSERT INTO tb_pagamento(id, valor, nome, numero_do_cartao, validade, codigo_de_seguranca, status, pedido_id, forma_de_pagamento_id, versao, criado_em, atualizado_em) VALUES(3, 1200, 'Maria Joaquina',    'k1:uAoscga5ptmbkj0rNgmt+g/pKskVBUjxtZgmGao3PqxnmEIWNW3Hh0EE900=', '01/25', 'k1:Y0GHSqxuqDRPeqhFnySruMimrxye2AYV+uj4mrQHiw==', 'CRIADO', 3, 2, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
 
-INSERT INTO tb_pagamento(valor, status, pedido_id, forma_de_pagamento_id) VALUES(1200, 'CRIADO', 4, 1);
-INSERT INTO tb_pagamento(valor, status, pedido_id, forma_de_pagamento_id) VALUES(1200, 'CANCELADO', 4, 1);
-INSERT INTO tb_pagamento(valor, status, pedido_id, forma_de_pagamento_id) VALUES(1200, 'CONFIRMADO', 6, 1);
+INSERT INTO tb_pagamento(id, valor, status, pedido_id, forma_de_pagamento_id, versao, criado_em, atualizado_em) VALUES(4, 1200, 'CRIADO', 4, 1, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+INSERT INTO tb_pagamento(id, valor, status, pedido_id, forma_de_pagamento_id, versao, criado_em, atualizado_em) VALUES(5, 1200, 'CANCELADO', 4, 1, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+INSERT INTO tb_pagamento(id, valor, status, pedido_id, forma_de_pagamento_id, versao, criado_em, atualizado_em) VALUES(6, 1200, 'CONFIRMADO', 6, 1, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+
+-- ids explicitos acima: a sequence (pooled-lo, incremento 50) continua a partir do proximo id livre
+ALTER SEQUENCE tb_pagamento_seq RESTART WITH 7;
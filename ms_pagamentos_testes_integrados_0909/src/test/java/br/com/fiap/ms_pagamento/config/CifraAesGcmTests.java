@@ -0,0 +1,132 @@
+package br.com.fiap.ms_pagamento.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+public class CifraAesGcmTests {
+
+    private static final byte[] AAD = "tb_pagamento.numero_do_cartao#1".getBytes(StandardCharsets.UTF_8);
+
+    private byte[] chave1;
+    private byte[] chave2;
+    private CifraAesGcm cifra;
+
+    @BeforeEach
+    void setup() {
+        chave1 = new byte[32];
+        chave2 = new byte[32];
+        chave2[0] = 1;
+        cifra = new CifraAesGcm(Map.of("k1", chave1), "k1");
+    }
+
+    @Test
+    @DisplayName("cifrar deveria gravar o id da chave e decifrar deveria devolver o texto original")
+    public void cifrarShouldPrefixKeyIdAndRoundTrip() {
+        String cifrado = cifra.cifrar("2365145936541245", AAD);
+
+        Assertions.assertTrue(cifrado.startsWith("k1:"));
+        Assertions.assertFalse(cifrado.contains("2365145936541245"));
+        Assertions.assertEquals("2365145936541245", cifra.decifrar(cifrado, AAD));
+    }
+
+    @Test
+    @DisplayName("cifrar deveria usar um IV novo a cada chamada")
+    public void cifrarShouldUseFreshIvEachTime() {
+        Assertions.assertNotEquals(cifra.cifrar("585", AAD), cifra.cifrar("585", AAD));
+    }
+
+    @Test
+    @DisplayName("cifrado deveria distinguir texto puro legado e decifrar não deveria aceitá-lo")
+    public void decifrarShouldRejectLegacyPlaintext() {
+        Assertions.assertFalse(cifra.cifrado("1234567890123456"));
+        Assertions.assertTrue(cifra.cifrado(cifra.cifrar("1234567890123456", AAD)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            cifra.decifrar("1234567890123456", AAD);
+        });
+        Assertions.assertNull(cifra.decifrar(null, AAD));
+        Assertions.assertNull(cifra.cifrar(null, AAD));
+    }
+
+    @Test
+    @DisplayName("dePropriedades deveria falhar quando a chave não foi configurada")
+    public void dePropriedadesShouldFailWhenKeyIsMissing() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("pagamento.criptografia.chave-ativa", "k1")
+                .withProperty("pagamento.criptografia.chaves.k1", "");
+
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            CifraAesGcm.dePropriedades(environment);
+        });
+    }
+
+    @Test
+    @DisplayName("decifrar deveria lançar exceção quando o AAD não é o usado ao cifrar")
+    public void decifrarShouldThrowWhenAadDiffers() {
+        String cifrado = cifra.cifrar("2365145936541245", AAD);
+        byte[] outraLinha = "tb_pagamento.numero_do_cartao#2".getBytes(StandardCharsets.UTF_8);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            cifra.decifrar(cifrado, outraLinha);
+        });
+    }
+
+    @Test
+    @DisplayName("depois da rotação valores novos usam a chave ativa e os antigos continuam legíveis")
+    public void decifrarShouldReadValuesFromPreviousKeyAfterRotation() {
+        String antigo = cifra.cifrar("585", AAD);
+        CifraAesGcm rotacionada = new CifraAesGcm(Map.of("k1", chave1, "k2", chave2), "k2");
+
+        String novo = rotacionada.cifrar("585", AAD);
+
+        Assertions.assertTrue(novo.startsWith("k2:"));
+        Assertions.assertFalse(rotacionada.cifradoComChaveAtiva(antigo));
+        Assertions.assertTrue(rotacionada.cifradoComChaveAtiva(novo));
+        Assertions.assertEquals("585", rotacionada.decifrar(antigo, AAD));
+        Assertions.assertEquals("585", rotacionada.decifrar(novo, AAD));
+    }
+
+    @Test
+    @DisplayName("decifrar deveria lançar exceção quando a chave do valor não está configurada")
+    public void decifrarShouldThrowWhenKeyIsUnknown() {
+        String cifrado = new CifraAesGcm(Map.of("k2", chave2), "k2").cifrar("585", AAD);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            cifra.decifrar(cifrado, AAD);
+        });
+    }
+
+    @Test
+    @DisplayName("decifrar deveria lançar exceção quando o valor foi adulterado")
+    public void decifrarShouldThrowWhenValueWasTampered() {
+        String cifrado = cifra.cifrar("2365145936541245", AAD);
+        byte[] dados = Base64.getDecoder().decode(cifrado.substring(3));
+        dados[dados.length - 1] ^= 1;
+        String adulterado = "k1:" + Base64.getEncoder().encodeToString(dados);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            cifra.decifrar(adulterado, AAD);
+        });
+    }
+
+    @Test
+    @DisplayName("impressao deveria ser determinística, depender da chave e continuar conferindo depois da rotação")
+    public void impressaoShouldBeKeyedAndSurviveRotation() {
+        byte[] dados = "2365145936541245".getBytes(StandardCharsets.UTF_8);
+        String impressao = cifra.impressao(dados);
+        CifraAesGcm rotacionada = new CifraAesGcm(Map.of("k1", chave1, "k2", chave2), "k2");
+
+        Assertions.assertTrue(impressao.startsWith("k1:"));
+        Assertions.assertEquals(impressao, cifra.impressao(dados));
+        Assertions.assertNotEquals(impressao.substring(3), rotacionada.impressao(dados).substring(3));
+        Assertions.assertTrue(rotacionada.confereImpressao(impressao, dados));
+        Assertions.assertFalse(rotacionada.confereImpressao(impressao, "4111111111111111".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertFalse(new CifraAesGcm(Map.of("k2", chave2), "k2").confereImpressao(impressao, dados));
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.fiap.ms_pagamento.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// uma conexão só: segurando-a aqui, a requisição espera "espera" e responde 503
+@SpringBootTest(properties = {"pagamento.datasource.permissoes.enabled=true",
+        "pagamento.datasource.permissoes.max-concorrencia=1", "pagamento.datasource.permissoes.espera=200ms",
+        "pagamento.outbox.publicador.enabled=false"})
+@AutoConfigureMockMvc
+public class ConnectionPermitDataSourceIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    @DisplayName("o DataSource principal deveria passar pelo semáforo e responder 503 com as permissões esgotadas")
+    public void requestShouldReturnServiceUnavailableWhenNoPermitIsAvailable() throws Exception {
+        ConnectionPermitDataSource permissoes = Assertions.assertInstanceOf(ConnectionPermitDataSource.class,
+                dataSource);
+
+        try (Connection connection = dataSource.getConnection()) {
+            Assertions.assertEquals(0, permissoes.getAvailablePermits());
+            mockMvc.perform(get("/pagamentos?size=1").accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isServiceUnavailable());
+        }
+
+        Assertions.assertEquals(1, permissoes.getAvailablePermits());
+        mockMvc.perform(get("/pagamentos?size=1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+}
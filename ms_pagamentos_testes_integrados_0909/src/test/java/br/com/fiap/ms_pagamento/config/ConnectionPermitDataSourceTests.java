@@ -0,0 +1,50 @@
+package br.com.fiap.ms_pagamento.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+public class ConnectionPermitDataSourceTests {
+
+    private DataSource target;
+    private ConnectionPermitDataSource dataSource;
+
+    @BeforeEach
+    void setup() throws Exception {
+        target = Mockito.mock(DataSource.class);
+        Mockito.when(target.getConnection()).thenAnswer(invocation -> Mockito.mock(Connection.class));
+        dataSource = new ConnectionPermitDataSource(target, 1, Duration.ofMillis(50));
+    }
+
+    @Test
+    @DisplayName("getConnection deveria lançar SQLTransientConnectionException quando não há permissão livre")
+    public void getConnectionShouldThrowWhenNoPermitIsAvailable() throws Exception {
+        Connection connection = dataSource.getConnection();
+
+        Assertions.assertEquals(0, dataSource.getAvailablePermits());
+        Assertions.assertThrows(SQLTransientConnectionException.class, () -> {
+            dataSource.getConnection();
+        });
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("close deveria devolver a permissão uma única vez")
+    public void closeShouldReleasePermitOnlyOnce() throws Exception {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        Assertions.assertEquals(1, dataSource.getAvailablePermits());
+        Assertions.assertDoesNotThrow(() -> {
+            dataSource.getConnection();
+        });
+    }
+}
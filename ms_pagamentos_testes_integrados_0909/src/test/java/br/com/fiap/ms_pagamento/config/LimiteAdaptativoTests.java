@@ -0,0 +1,111 @@
+package br.com.fiap.ms_pagamento.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class LimiteAdaptativoTests {
+
+    private static final long ALVO = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long RAPIDO = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long LENTO = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    @DisplayName("adquirir deveria rejeitar na hora quando o limite está ocupado e não há fila")
+    public void adquirirShouldRejectWhenLimitIsReachedAndQueueIsDisabled() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo(2, 1, 10, 0.5, ALVO, 0, 0);
+
+        Assertions.assertTrue(limite.adquirir());
+        Assertions.assertTrue(limite.adquirir());
+        Assertions.assertFalse(limite.adquirir());
+        Assertions.assertEquals(2, limite.getEmVoo());
+    }
+
+    @Test
+    @DisplayName("liberar deveria aumentar o limite aos poucos enquanto a latência fica abaixo do alvo")
+    public void liberarShouldIncreaseLimitAdditivelyWhenFast() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo(2, 1, 3, 0.5, ALVO, 0, 0);
+
+        for (int i = 0; i < 20; i++) {
+            long inicio = System.nanoTime();
+            limite.adquirir();
+            limite.adquirir();
+            limite.liberar(inicio, inicio + RAPIDO, false);
+            limite.liberar(inicio, inicio + RAPIDO, false);
+        }
+
+        Assertions.assertEquals(3, limite.getLimite());
+        Assertions.assertEquals(0, limite.getEmVoo());
+    }
+
+    @Test
+    @DisplayName("liberar não deveria aumentar o limite quando ele não está sendo usado")
+    public void liberarShouldNotIncreaseIdleLimit() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo(4, 1, 10, 0.5, ALVO, 0, 0);
+
+        for (int i = 0; i < 50; i++) {
+            long inicio = System.nanoTime();
+            limite.adquirir();
+            limite.liberar(inicio, inicio + RAPIDO, false);
+        }
+
+        Assertions.assertEquals(4, limite.getLimite());
+    }
+
+    @Test
+    @DisplayName("liberar deveria reduzir o limite uma única vez para chamadas lentas da mesma janela")
+    public void liberarShouldDecreaseMultiplicativelyOncePerWindow() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 10, 0.5, ALVO, 0, 0);
+        long inicio = System.nanoTime();
+        limite.adquirir();
+        limite.adquirir();
+        limite.adquirir();
+
+        limite.liberar(inicio, inicio + LENTO, false);
+        limite.liberar(inicio, inicio + LENTO, false);
+        limite.liberar(inicio, inicio + LENTO, true);
+        Assertions.assertEquals(5, limite.getLimite());
+
+        long depois = inicio + LENTO + 1;
+        limite.adquirir();
+        limite.liberar(depois, depois + RAPIDO, true);
+        Assertions.assertEquals(2, limite.getLimite());
+    }
+
+    @Test
+    @DisplayName("adquirir deveria esperar na fila até uma vaga ser liberada e rejeitar quando a fila está cheia")
+    public void adquirirShouldWaitInQueueAndRejectWhenQueueIsFull() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo(1, 1, 1, 0.5, ALVO, 1, TimeUnit.SECONDS.toNanos(5));
+        Assertions.assertTrue(limite.adquirir());
+        long inicio = System.nanoTime();
+
+        CompletableFuture<Boolean> naFila = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limite.adquirir();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (limite.getAguardando() == 0) {
+            Thread.onSpinWait();
+        }
+        Assertions.assertFalse(limite.adquirir());
+
+        limite.liberar(inicio, inicio + RAPIDO, false);
+        Assertions.assertTrue(naFila.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, limite.getEmVoo());
+    }
+
+    @Test
+    @DisplayName("adquirir deveria desistir quando a espera na fila se esgota")
+    public void adquirirShouldGiveUpWhenQueueWaitExpires() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo(1, 1, 1, 0.5, ALVO, 1, TimeUnit.MILLISECONDS.toNanos(20));
+        limite.adquirir();
+
+        Assertions.assertFalse(limite.adquirir());
+        Assertions.assertEquals(0, limite.getAguardando());
+    }
+}
@@ -0,0 +1,147 @@
+package br.com.fiap.ms_pagamento.config;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.dto.ResumoDTO;
+import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import br.com.fiap.ms_pagamento.service.CriptografiaService;
+import br.com.fiap.ms_pagamento.service.PagamentoService;
+import br.com.fiap.ms_pagamento.service.ResumoService;
+import br.com.fiap.ms_pagamento.service.exception.BatchValidationException;
+import br.com.fiap.ms_pagamento.service.exception.ServiceUnavailableException;
+import br.com.fiap.ms_pagamento.tests.Factory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class LimiteConcorrenciaAspectTests {
+
+    private SimpleMeterRegistry registry;
+    private PagamentoService service;
+    private CountDownLatch liberar;
+    private CountDownLatch dentro;
+    private ExecutorService executor;
+    private Long existingId;
+    private Long otherId;
+    private ResumoService resumoService;
+    private ResumoDTO resumo;
+
+    @BeforeEach
+    void setup() {
+        existingId = 1L;
+        otherId = 2L;
+        PagamentoDTO pagamento = new PagamentoDTO(Factory.createPagamento());
+        resumo = new ResumoDTO(null, Map.of(), Map.of());
+        liberar = new CountDownLatch(1);
+        dentro = new CountDownLatch(1);
+        executor = Executors.newSingleThreadExecutor();
+
+        PagamentoRepository repository = Mockito.mock(PagamentoRepository.class);
+        Mockito.when(repository.findDtoById(existingId)).thenAnswer(invocation -> {
+            dentro.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return Optional.of(pagamento);
+        });
+        Mockito.when(repository.findDtoById(otherId)).thenReturn(Optional.of(pagamento));
+
+        PagamentoService target = new PagamentoService();
+        ReflectionTestUtils.setField(target, "repository", repository);
+        ReflectionTestUtils.setField(target, "criptografia", Mockito.mock(CriptografiaService.class));
+        resumoService = Mockito.mock(ResumoService.class);
+        Mockito.when(resumoService.resumo()).thenReturn(resumo);
+        ReflectionTestUtils.setField(target, "resumoService", resumoService);
+
+        registry = new SimpleMeterRegistry();
+        LimiteConcorrenciaAspect aspect = new LimiteConcorrenciaAspect();
+        ReflectionTestUtils.setField(aspect, "registry", registry);
+        ReflectionTestUtils.setField(aspect, "inicial", 1);
+        ReflectionTestUtils.setField(aspect, "minimo", 1);
+        ReflectionTestUtils.setField(aspect, "maximo", 1);
+        ReflectionTestUtils.setField(aspect, "fatorReducao", 0.9);
+        ReflectionTestUtils.setField(aspect, "latenciaAlvo", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(aspect, "fila", 0);
+        ReflectionTestUtils.setField(aspect, "esperaFila", Duration.ZERO);
+        ReflectionTestUtils.invokeMethod(aspect, "iniciar");
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(aspect);
+        service = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("limitar deveria lançar ServiceUnavailableException e contar a rejeição quando não há vaga")
+    public void limitarShouldThrowServiceUnavailableWhenLimitIsReached() throws Exception {
+        Future<PagamentoDTO> ocupando = executor.submit(() -> service.findById(existingId));
+        dentro.await(5, TimeUnit.SECONDS);
+
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> {
+            service.findById(existingId);
+        });
+        Assertions.assertEquals(1.0, registry.get("pagamento.concorrencia.rejeitadas")
+                .tag("operacao", "findById").counter().count());
+        Assertions.assertEquals(1.0, registry.get("pagamento.concorrencia.em-voo").gauge().value());
+
+        liberar.countDown();
+        Assertions.assertNotNull(ocupando.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(0.0, registry.get("pagamento.concorrencia.em-voo").gauge().value());
+    }
+
+    @Test
+    @DisplayName("limitar não deveria ocupar vaga quando a chamada já está dentro de uma transação")
+    public void limitarShouldBypassWhenTransactionIsActive() throws Exception {
+        Future<PagamentoDTO> ocupando = executor.submit(() -> service.findById(existingId));
+        dentro.await(5, TimeUnit.SECONDS);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            Assertions.assertNotNull(service.findById(otherId));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> {
+            service.findById(otherId);
+        });
+
+        liberar.countDown();
+        ocupando.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("limitar não deveria ocupar vaga nas operações longas ou sem banco (lote, exportação, resumo)")
+    public void limitarShouldIgnoreLongRunningOperations() throws Exception {
+        Future<PagamentoDTO> ocupando = executor.submit(() -> service.findById(existingId));
+        dentro.await(5, TimeUnit.SECONDS);
+
+        Assertions.assertSame(resumo, service.resumo());
+        // chega à validação do deleteAll em vez de ser rejeitada pelo limite
+        Assertions.assertThrows(BatchValidationException.class, () -> {
+            service.deleteAll(List.of());
+        });
+        Assertions.assertEquals(1.0, registry.get("pagamento.concorrencia.em-voo").gauge().value());
+
+        liberar.countDown();
+        ocupando.get(5, TimeUnit.SECONDS);
+    }
+}
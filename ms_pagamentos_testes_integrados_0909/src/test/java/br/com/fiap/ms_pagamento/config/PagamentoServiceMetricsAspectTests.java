@@ -0,0 +1,74 @@
+package br.com.fiap.ms_pagamento.config;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.repository.PagamentoArquivadoRepository;
+import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import br.com.fiap.ms_pagamento.service.CriptografiaService;
+import br.com.fiap.ms_pagamento.service.PagamentoService;
+import br.com.fiap.ms_pagamento.service.exception.ResourceNotFoundException;
+import br.com.fiap.ms_pagamento.tests.Factory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+public class PagamentoServiceMetricsAspectTests {
+
+    private SimpleMeterRegistry registry;
+    private PagamentoService service;
+    private Long existingId;
+    private Long nonExistingId;
+
+    @BeforeEach
+    void setup() {
+        existingId = 1L;
+        nonExistingId = 100L;
+        PagamentoDTO pagamento = new PagamentoDTO(Factory.createPagamento());
+
+        PagamentoRepository repository = Mockito.mock(PagamentoRepository.class);
+        Mockito.when(repository.findDtoById(existingId)).thenReturn(Optional.of(pagamento));
+        Mockito.when(repository.findDtoById(nonExistingId)).thenReturn(Optional.empty());
+
+        PagamentoService target = new PagamentoService();
+        ReflectionTestUtils.setField(target, "repository", repository);
+        ReflectionTestUtils.setField(target, "arquivadoRepository", Mockito.mock(PagamentoArquivadoRepository.class));
+        ReflectionTestUtils.setField(target, "criptografia", Mockito.mock(CriptografiaService.class));
+
+        registry = new SimpleMeterRegistry();
+        PagamentoServiceMetricsAspect aspect = new PagamentoServiceMetricsAspect();
+        ReflectionTestUtils.setField(aspect, "registry", registry);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(aspect);
+        service = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("medir deveria registrar a latência da operação com excecao=none quando não há erro")
+    public void medirShouldRecordTimerWhenOperationSucceeds() {
+        service.findById(existingId);
+
+        Assertions.assertEquals(1, registry.get("pagamento.service")
+                .tag("operacao", "findById").tag("excecao", "none").timer().count());
+        Assertions.assertNull(registry.find("pagamento.service.erros").counter());
+    }
+
+    @Test
+    @DisplayName("medir deveria contar o erro pelo tipo da exceção e propagá-la")
+    public void medirShouldCountErrorAndRethrowWhenOperationFails() {
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+            service.findById(nonExistingId);
+        });
+
+        Assertions.assertEquals(1.0, registry.get("pagamento.service.erros")
+                .tag("operacao", "findById").tag("excecao", "ResourceNotFoundException").counter().count());
+        Assertions.assertEquals(1, registry.get("pagamento.service")
+                .tag("excecao", "ResourceNotFoundException").timer().count());
+    }
+}
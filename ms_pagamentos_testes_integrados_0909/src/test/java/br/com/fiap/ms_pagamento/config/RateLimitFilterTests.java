@@ -0,0 +1,92 @@
+package br.com.fiap.ms_pagamento.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RateLimitFilterTests {
+
+    private SimpleMeterRegistry registry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setup() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("pagamento.rate-limit.regras.escrita.metodos", "POST,PUT")
+                .withProperty("pagamento.rate-limit.regras.escrita.caminho", "/pagamentos/**")
+                .withProperty("pagamento.rate-limit.regras.escrita.capacidade", "2")
+                .withProperty("pagamento.rate-limit.regras.escrita.por-segundo", "1");
+        registry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "environment", environment);
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "registry", registry);
+        ReflectionTestUtils.setField(filter, "header", "X-Client-Id");
+        ReflectionTestUtils.setField(filter, "maxChaves", 100);
+        ReflectionTestUtils.invokeMethod(filter, "iniciar");
+    }
+
+    @Test
+    @DisplayName("doFilter deveria responder 429 com Retry-After quando o cliente esgota a rajada")
+    public void doFilterShouldReturnTooManyRequestsWhenBucketIsEmpty() throws Exception {
+        Assertions.assertEquals(200, executar("POST", "/pagamentos", "a").getStatus());
+        Assertions.assertEquals(200, executar("POST", "/pagamentos", "a").getStatus());
+
+        MockHttpServletResponse response = executar("POST", "/pagamentos", "a");
+
+        Assertions.assertEquals(429, response.getStatus());
+        Assertions.assertEquals("1", response.getHeader("Retry-After"));
+        Assertions.assertTrue(response.getContentAsString().contains("\"status\":429"));
+        Assertions.assertEquals(1.0, registry.get("pagamento.rate-limit.rejeitadas").tag("regra", "escrita")
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("doFilter deveria manter um balde por cliente")
+    public void doFilterShouldKeepOneBucketPerClient() throws Exception {
+        executar("POST", "/pagamentos", "a");
+        executar("POST", "/pagamentos", "a");
+
+        Assertions.assertEquals(429, executar("POST", "/pagamentos", "a").getStatus());
+        Assertions.assertEquals(200, executar("POST", "/pagamentos", "b").getStatus());
+        Assertions.assertEquals(200, executar("POST", "/pagamentos", null).getStatus());
+    }
+
+    @Test
+    @DisplayName("doFilter não deveria limitar requisições fora das regras")
+    public void doFilterShouldIgnoreRequestsWithoutRule() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(200, executar("GET", "/pagamentos/1", "a").getStatus());
+        }
+        Assertions.assertEquals(0, filter.quantidadeDeBaldes());
+    }
+
+    @Test
+    @DisplayName("removerOciosos deveria descartar apenas baldes cheios")
+    public void removerOciososShouldEvictOnlyFullBuckets() throws Exception {
+        executar("POST", "/pagamentos", "a");
+        Assertions.assertEquals(1, filter.quantidadeDeBaldes());
+
+        filter.removerOciosos();
+
+        Assertions.assertEquals(1, filter.quantidadeDeBaldes());
+    }
+
+    private MockHttpServletResponse executar(String metodo, String uri, String cliente) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, uri);
+        if (cliente != null) {
+            request.addHeader("X-Client-Id", cliente);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,129 @@
+package br.com.fiap.ms_pagamento.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+
+// Dois bancos H2 em memória, cada um com uma tabela que diz de onde a leitura veio
+public class ReplicaRoutingDataSourceTests {
+
+    private DataSource primario;
+    private DataSource replica;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setup() {
+        primario = banco("primario");
+        replica = banco("replica");
+        criarRoteamento("SELECT 0");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("transações readOnly deveriam ler da réplica e as demais do primário")
+    public void shouldRouteReadOnlyTransactionsToReplica() {
+        Assertions.assertEquals("replica", origem(true));
+        Assertions.assertEquals("primario", origem(false));
+    }
+
+    @Test
+    @DisplayName("leituras deveriam voltar para o primário quando o atraso da réplica passa do limite")
+    public void shouldRouteToPrimaryWhenReplicaLagIsAboveLimit() {
+        criarRoteamento("SELECT 5");
+        routingDataSource.verificarAtraso();
+
+        Assertions.assertFalse(routingDataSource.isReplicaDisponivel());
+        Assertions.assertEquals("primario", origem(true));
+    }
+
+    @Test
+    @DisplayName("leituras deveriam voltar para o primário quando a consulta de atraso falha")
+    public void shouldRouteToPrimaryWhenLagQueryFails() {
+        criarRoteamento("SELECT atraso FROM tabela_inexistente");
+        routingDataSource.verificarAtraso();
+
+        Assertions.assertEquals("primario", origem(true));
+    }
+
+    @Test
+    @DisplayName("depois de gravar, a mesma requisição e as seguintes com o cookie deveriam ler do primário")
+    public void shouldReadOwnWritesFromPrimary() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE origem SET nome = nome"));
+
+        Assertions.assertEquals("primario", origem(true));
+        Cookie cookie = response.getCookie(ReplicaRoutingDataSource.COOKIE_ESCRITA);
+        Assertions.assertNotNull(cookie);
+
+        MockHttpServletRequest seguinte = new MockHttpServletRequest();
+        seguinte.setCookies(cookie);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(seguinte, new MockHttpServletResponse()));
+        Assertions.assertEquals("primario", origem(true));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(),
+                new MockHttpServletResponse()));
+        Assertions.assertEquals("replica", origem(true));
+    }
+
+    @Test
+    @DisplayName("lerDoPrimario deveria levar só a transação readOnly atual para o primário")
+    public void lerDoPrimarioShouldRouteOnlyCurrentTransactionToPrimary() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        String origem = template.execute(status -> {
+            ReplicaRoutingDataSource.lerDoPrimario();
+            return jdbcTemplate.queryForObject("SELECT nome FROM origem", String.class);
+        });
+
+        Assertions.assertEquals("primario", origem);
+        Assertions.assertEquals("replica", origem(true));
+    }
+
+    private String origem(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT nome FROM origem", String.class));
+    }
+
+    private void criarRoteamento(String consultaAtraso) {
+        routingDataSource = new ReplicaRoutingDataSource(primario, replica, Duration.ofSeconds(2), consultaAtraso);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    private static DataSource banco(String nome) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + nome + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE origem (nome VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO origem VALUES (?)", nome);
+        return dataSource;
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.fiap.ms_pagamento.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TokenBucketTests {
+
+    @Test
+    @DisplayName("tentarConsumir deveria liberar a rajada inteira e depois devolver a espera até a próxima ficha")
+    public void tentarConsumirShouldAllowBurstThenReturnWait() {
+        TokenBucket balde = new TokenBucket(3, 10, 0);
+
+        Assertions.assertEquals(0, balde.tentarConsumir(0));
+        Assertions.assertEquals(0, balde.tentarConsumir(0));
+        Assertions.assertEquals(0, balde.tentarConsumir(0));
+        Assertions.assertEquals(100, balde.tentarConsumir(0));
+        Assertions.assertEquals(40, balde.tentarConsumir(60));
+        Assertions.assertEquals(0, balde.tentarConsumir(100));
+    }
+
+    @Test
+    @DisplayName("tentarConsumir não deveria acumular além da capacidade depois de muito tempo parado")
+    public void tentarConsumirShouldNotExceedCapacity() {
+        TokenBucket balde = new TokenBucket(2, 1, 0);
+        long umDia = TimeUnit.DAYS.toMillis(1);
+
+        Assertions.assertEquals(0, balde.tentarConsumir(umDia));
+        Assertions.assertEquals(0, balde.tentarConsumir(umDia));
+        Assertions.assertEquals(1000, balde.tentarConsumir(umDia));
+    }
+
+    @Test
+    @DisplayName("cheio deveria ser verdadeiro só depois da recarga completa")
+    public void cheioShouldBeTrueOnlyAfterFullRefill() {
+        TokenBucket balde = new TokenBucket(2, 2, 0);
+        balde.tentarConsumir(0);
+        balde.tentarConsumir(0);
+
+        Assertions.assertFalse(balde.cheio(500));
+        Assertions.assertTrue(balde.cheio(1000));
+    }
+
+    @Test
+    @DisplayName("construtor deveria rejeitar capacidade que não cabe nos bits de fichas")
+    public void constructorShouldRejectCapacityAboveLimit() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            new TokenBucket(20000, 1, 0);
+        });
+    }
+
+    @Test
+    @DisplayName("tentarConsumir concorrente não deveria liberar mais fichas que a capacidade")
+    public void tentarConsumirShouldNotOverAllowUnderContention() throws Exception {
+        TokenBucket balde = new TokenBucket(1000, 1, 0);
+        AtomicInteger liberadas = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        if (balde.tentarConsumir(0) == 0) {
+                            liberadas.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1000, liberadas.get());
+    }
+}
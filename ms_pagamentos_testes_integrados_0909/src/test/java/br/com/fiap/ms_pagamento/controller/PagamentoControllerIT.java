@@ -3,9 +3,15 @@ package br.com.fiap.ms_pagamento.controller;
 import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
 import br.com.fiap.ms_pagamento.model.Pagamento;
 import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
 import br.com.fiap.ms_pagamento.tests.Factory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,18 +19,31 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
 import javax.print.attribute.standard.Media;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -34,8 +53,15 @@ public class PagamentoControllerIT {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+
+    @Autowired
+    private PagamentoRepository repository;
+
     private Long existingId;
     private Long nonExistingId;
+    private Long countTotalPagamento;
     private PagamentoDTO pagamentoDTO;
 
     //converter Obj para JSON
@@ -46,6 +72,7 @@ public class PagamentoControllerIT {
     void setUp() throws Exception{
         existingId = 1L;
         nonExistingId = 50L;
+        countTotalPagamento = 6L;
         pagamentoDTO = Factory.createPagamentoDTO();
     }
 
@@ -63,6 +90,16 @@ public class PagamentoControllerIT {
 
     }
 
+    @Test
+    public void findAllShouldReturnNextCursorHeaderWhenThereAreMorePages() throws Exception {
+            mockMvc.perform(get("/pagamentos?size=2")
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Next-Cursor", "2"))
+                    .andExpect(jsonPath("$.length()").value(2));
+    }
+
     @Test
     public void findByIdShouldReturnPagamentoDTOWhenIdExists() throws Exception{
         mockMvc.perform(get("/pagamentos/{id}", existingId)
@@ -73,7 +110,109 @@ public class PagamentoControllerIT {
                 .andExpect(jsonPath("id").value(1))
                 .andExpect(jsonPath("nome").isString())
                 .andExpect(jsonPath("nome").value("Nicodemus C Souza"))
-                .andExpect(jsonPath("status").value("CRIADO"));
+                .andExpect(jsonPath("status").value("CRIADO"))
+                .andExpect(jsonPath("cartaoMascarado").value("************3456"))
+                .andExpect(jsonPath("numeroDoCartao").doesNotExist())
+                .andExpect(jsonPath("codigoDeSeguranca").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("findById deveria responder 304 sem corpo quando If-None-Match tem a versão atual")
+    public void findByIdShouldReturnNotModifiedWhenETagMatches() throws Exception{
+        mockMvc.perform(get("/pagamentos/{id}", existingId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""));
+
+        mockMvc.perform(get("/pagamentos/{id}", existingId)
+                        .header("If-None-Match", "\"0\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("findById deveria responder 200 quando a versão mudou depois do ETag informado")
+    public void findByIdShouldReturnOkWhenVersionChanged() throws Exception{
+        mockMvc.perform(patch("/pagamentos/{id}/status", existingId)
+                        .content("{\"status\":\"CONFIRMADO\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/pagamentos/{id}", existingId)
+                        .header("If-None-Match", "\"0\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("findAll deveria responder 304 quando a página não mudou")
+    public void findAllShouldReturnNotModifiedWhenETagMatches() throws Exception{
+        String etag = mockMvc.perform(get("/pagamentos")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/pagamentos")
+                        .header("If-None-Match", etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("findAll não deveria responder 304 quando a última página cheia ganha uma próxima")
+    public void findAllShouldNotReturnNotModifiedWhenFullLastPageGainsNextPage() throws Exception{
+        Long pedido = 9100L;
+        repository.saveAndFlush(new Pagamento(null, BigDecimal.valueOf(10), "Bach", "2365145936541245", "07/28",
+                "585", Status.CRIADO, pedido, 2L));
+        String etag = mockMvc.perform(get("/pagamentos?pedidoId={pedido}&size=1", pedido)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // o conteúdo da página não muda; só o próximo cursor aparece
+        repository.saveAndFlush(new Pagamento(null, BigDecimal.valueOf(20), "Bach", "2365145936541245", "07/28",
+                "585", Status.CRIADO, pedido, 2L));
+        mockMvc.perform(get("/pagamentos?pedidoId={pedido}&size=1", pedido)
+                        .header("If-None-Match", etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Next-Cursor"));
+    }
+
+    @Test
+    @DisplayName("export deveria estender o timeout assíncrono só da própria requisição")
+    public void exportShouldExtendAsyncTimeoutOnlyForItself() throws Exception{
+        MvcResult result = mockMvc.perform(get("/pagamentos/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        Assertions.assertEquals(3600000L, result.getRequest().getAsyncContext().getTimeout());
+        Assertions.assertNull(ReflectionTestUtils.getField(handlerAdapter, "asyncRequestTimeout"));
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+    }
+
+    @Test
+    @DisplayName("findAll deveria responder ETag fraco com Vary: Accept, o mesmo em JSON e Smile")
+    public void findAllShouldReturnWeakETagVaryingByAccept() throws Exception{
+        String json = mockMvc.perform(get("/pagamentos")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+        String smile = mockMvc.perform(get("/pagamentos")
+                        .accept(MediaType.parseMediaType("application/x-jackson-smile")))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        Assertions.assertTrue(json.matches("W/\"[0-9a-f]{64}\""));
+        Assertions.assertEquals(json, smile);
     }
 
     @Test
@@ -85,6 +224,29 @@ public class PagamentoControllerIT {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
     }
 
+    @Test
+    @DisplayName("resumo deveria retornar os totais por status e por forma de pagamento")
+    public void resumoShouldReturnTotals() throws Exception{
+        mockMvc.perform(get("/pagamentos/resumo")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.geral.quantidade").value(countTotalPagamento))
+                .andExpect(jsonPath("$.porStatus.CANCELADO.quantidade").value(1))
+                .andExpect(jsonPath("$.porFormaDePagamento.1.quantidade").value(3));
+    }
+
+    @Test
+    @DisplayName("findByPedidoIds deveria retornar os pagamentos dos pedidos informados")
+    public void findByPedidoIdsShouldReturnPagamentosOfPedidos() throws Exception{
+        mockMvc.perform(get("/pagamentos/pedido")
+                        .param("pedidoIds", "4,6")
+                        .param("status", "CRIADO")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(4));
+    }
+
     @Test
     public void insertShouldReturnPagamentoDTO() throws Exception{
         Pagamento entity = Factory.createPagamento();
@@ -121,6 +283,105 @@ public class PagamentoControllerIT {
                 .andExpect(jsonPath("$.nome").isEmpty());
     }
 
+    @Test
+    @DisplayName("Insert com a mesma Idempotency-Key deve devolver o mesmo pagamento sem gravar de novo")
+    public void insertShouldReplayOriginalResponseWhenIdempotencyKeyIsRepeated() throws Exception{
+        String chave = UUID.randomUUID().toString();
+        String jsonBody = objectMapper.writeValueAsString(pagamentoDTO);
+
+        String primeira = mockMvc.perform(post("/pagamentos")
+                .header("Idempotency-Key", chave)
+                .content(jsonBody)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Long id = objectMapper.readValue(primeira, PagamentoDTO.class).getId();
+
+        mockMvc.perform(post("/pagamentos")
+                .header("Idempotency-Key", chave)
+                .content(jsonBody)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.id").value(id));
+
+        Assertions.assertEquals(countTotalPagamento + 1, repository.count());
+    }
+
+    @Test
+    @DisplayName("Insert com a mesma Idempotency-Key e outro corpo deve retornar 422 sem gravar")
+    public void insertShouldReturnUnprocessableEntityWhenIdempotencyKeyIsReusedWithAnotherBody() throws Exception{
+        String chave = UUID.randomUUID().toString();
+        PagamentoDTO outro = new PagamentoDTO(null, BigDecimal.valueOf(1), pagamentoDTO.getNome(),
+                pagamentoDTO.getNumeroDoCartao(), pagamentoDTO.getValidade(), pagamentoDTO.getCodigoDeSeguranca(),
+                pagamentoDTO.getStatus(), pagamentoDTO.getPedidoId(), pagamentoDTO.getFormaDePagamentoId());
+
+        mockMvc.perform(post("/pagamentos")
+                .header("Idempotency-Key", chave)
+                .content(objectMapper.writeValueAsString(pagamentoDTO))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/pagamentos")
+                .header("Idempotency-Key", chave)
+                .content(objectMapper.writeValueAsString(outro))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnprocessableEntity());
+
+        Assertions.assertEquals(countTotalPagamento + 1, repository.count());
+    }
+
+    @Test
+    @DisplayName("Insert com a mesma Idempotency-Key e outro cartão deve retornar 422 sem gravar")
+    public void insertShouldReturnUnprocessableEntityWhenIdempotencyKeyIsReusedWithAnotherCard() throws Exception{
+        String chave = UUID.randomUUID().toString();
+        // número e código de segurança são WRITE_ONLY: o objectMapper não os escreve, o corpo é montado à mão
+        ObjectNode corpo = objectMapper.valueToTree(pagamentoDTO);
+        corpo.put("numeroDoCartao", "2365145936541245").put("codigoDeSeguranca", "585");
+        ObjectNode outroCartao = corpo.deepCopy();
+        outroCartao.put("numeroDoCartao", "4111111111111111").put("codigoDeSeguranca", "123");
+
+        mockMvc.perform(post("/pagamentos")
+                .header("Idempotency-Key", chave)
+                .content(corpo.toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/pagamentos")
+                .header("Idempotency-Key", chave)
+                .content(outroCartao.toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnprocessableEntity());
+
+        Assertions.assertEquals(countTotalPagamento + 1, repository.count());
+    }
+
+    @Test
+    @DisplayName("Insert com a mesma Idempotency-Key de clientes diferentes deve gravar dois pagamentos")
+    public void insertShouldScopeIdempotencyKeyByClient() throws Exception{
+        String chave = UUID.randomUUID().toString();
+        String jsonBody = objectMapper.writeValueAsString(pagamentoDTO);
+
+        for (String cliente : List.of("cliente-a", "cliente-b")) {
+            mockMvc.perform(post("/pagamentos")
+                    .header("Idempotency-Key", chave)
+                    .header("X-Client-Id", cliente)
+                    .content(jsonBody)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isCreated());
+        }
+
+        Assertions.assertEquals(countTotalPagamento + 2, repository.count());
+    }
+
     @Test
     @DisplayName("Insert deve lançar exception quando dados inválidos e retornar status 422")
     public void insertShouldThrowExceptionWhenInvalidData() throws Exception{
@@ -137,6 +398,39 @@ public class PagamentoControllerIT {
                 .andExpect(status().is4xxClientError());
     }
 
+    @Test
+    @DisplayName("Insert em lote deve retornar 422 com o erro de cada item inválido")
+    public void insertAllShouldReturnUnprocessableEntityWithItemErrorsWhenInvalidData() throws Exception{
+        Pagamento invalido = new Pagamento();
+        invalido.setFormaDePagamentoId(1L);
+        String jsonBody = objectMapper.writeValueAsString(List.of(pagamentoDTO, invalido));
+
+        mockMvc.perform(post("/pagamentos/batch")
+                .content(jsonBody)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.errors[?(@.fieldName == '[1].valor')]").exists())
+                .andExpect(jsonPath("$.errors[?(@.fieldName == '[1].pedidoId')]").exists());
+    }
+
+    @Test
+    @DisplayName("Insert em lote com um item null deve retornar 422 com o erro no índice do item")
+    public void insertAllShouldReturnUnprocessableEntityWhenItemIsNull() throws Exception{
+        String jsonBody = "[" + objectMapper.writeValueAsString(pagamentoDTO) + ", null]";
+        long antes = repository.count();
+
+        mockMvc.perform(post("/pagamentos/batch")
+                .content(jsonBody)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.errors[?(@.fieldName == '[1]')]").exists());
+
+        Assertions.assertEquals(antes, repository.count());
+    }
+
     @Test
     public void updateShouldUpdateAndReturnPagamentoDTOWhenIdExists() throws Exception{
         //status 200
@@ -145,4 +439,90 @@ public class PagamentoControllerIT {
         
     }
 
+    @Test
+    @DisplayName("update com If-Match da versão atual deveria gravar e devolver o ETag da nova versão")
+    public void updateShouldReturnNewETagWhenIfMatchIsCurrentVersion() throws Exception{
+        String jsonBody = objectMapper.writeValueAsString(pagamentoDTO);
+
+        mockMvc.perform(put("/pagamentos/{id}", existingId)
+                        .header("If-Match", "\"0\"")
+                        .content(jsonBody)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+    }
+
+    @Test
+    @DisplayName("update com If-Match desatualizado deveria retornar 412 sem gravar")
+    public void updateShouldReturnPreconditionFailedWhenIfMatchIsStale() throws Exception{
+        String jsonBody = objectMapper.writeValueAsString(pagamentoDTO);
+
+        mockMvc.perform(put("/pagamentos/{id}", existingId)
+                        .header("If-Match", "\"7\"")
+                        .content(jsonBody)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+
+        Assertions.assertEquals("Nicodemus C Souza", repository.findById(existingId).get().getNome());
+    }
+
+    @Test
+    @DisplayName("findAll deveria responder em Smile quando o Accept pede application/x-jackson-smile")
+    public void findAllShouldReturnSmileWhenAccepted() throws Exception {
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+
+        MvcResult result = mockMvc.perform(get("/pagamentos")
+                        .accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn();
+
+        PagamentoDTO[] pagamentos = new SmileMapper().readValue(result.getResponse().getContentAsByteArray(),
+                PagamentoDTO[].class);
+        Assertions.assertEquals(countTotalPagamento, pagamentos.length);
+        Assertions.assertEquals("Nicodemus C Souza", pagamentos[0].getNome());
+    }
+
+    @Test
+    @DisplayName("Insert em lote deveria aceitar e responder CBOR")
+    public void insertAllShouldAcceptAndReturnCbor() throws Exception {
+        MediaType cbor = MediaType.parseMediaType("application/cbor");
+        CBORMapper mapper = new CBORMapper();
+
+        MvcResult result = mockMvc.perform(post("/pagamentos/batch")
+                        .content(mapper.writeValueAsBytes(List.of(pagamentoDTO)))
+                        .contentType(cbor)
+                        .accept(cbor))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(cbor))
+                .andReturn();
+
+        PagamentoDTO[] pagamentos = mapper.readValue(result.getResponse().getContentAsByteArray(), PagamentoDTO[].class);
+        Assertions.assertEquals(1, pagamentos.length);
+        Assertions.assertNotNull(pagamentos[0].getId());
+        Assertions.assertEquals(pagamentoDTO.getPedidoId(), pagamentos[0].getPedidoId());
+    }
+
+    @Test
+    @DisplayName("Smile e CBOR deveriam vir uma vez cada, logo depois do JSON, com a configuração do Jackson do JSON")
+    public void binaryConvertersShouldFollowJsonWithSameJacksonConfiguration() {
+        List<HttpMessageConverter<?>> converters = handlerAdapter.getMessageConverters();
+        List<Class<?>> jackson = converters.stream()
+                .filter(converter -> converter instanceof AbstractJackson2HttpMessageConverter)
+                .<Class<?>>map(Object::getClass)
+                .toList();
+        // antes do JSON fica o ProjectingJackson2HttpMessageConverter do Spring Data (também JSON)
+        Assertions.assertEquals(List.of(MappingJackson2HttpMessageConverter.class,
+                MappingJackson2SmileHttpMessageConverter.class, MappingJackson2CborHttpMessageConverter.class),
+                jackson.subList(jackson.indexOf(MappingJackson2HttpMessageConverter.class), jackson.size()));
+
+        converters.stream()
+                .filter(converter -> converter instanceof AbstractJackson2HttpMessageConverter)
+                .map(converter -> ((AbstractJackson2HttpMessageConverter) converter).getObjectMapper())
+                .forEach(mapper -> Assertions.assertFalse(
+                        mapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)));
+    }
+
 }
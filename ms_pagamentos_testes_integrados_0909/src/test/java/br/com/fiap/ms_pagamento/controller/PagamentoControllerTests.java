@@ -1,7 +1,11 @@
 package br.com.fiap.ms_pagamento.controller;
 
+import br.com.fiap.ms_pagamento.dto.StatusDTO;
 import br.com.fiap.ms_pagamento.model.Pagamento;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.service.exception.PagamentoArquivadoException;
 import br.com.fiap.ms_pagamento.service.exception.ResourceNotFoundException;
+import br.com.fiap.ms_pagamento.service.exception.StatusTransitionException;
 import br.com.fiap.ms_pagamento.tests.Factory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,18 +16,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import br.com.fiap.ms_pagamento.dto.CursorPageDTO;
 import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.service.IdempotenciaService;
 import br.com.fiap.ms_pagamento.service.PagamentoService;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.web.bind.annotation.DeleteMapping;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -33,7 +41,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.util.List;
 
 
-@WebMvcTest(PagamentoController.class)
+// o limite de requisições tem testes próprios (RateLimitFilterTests) e não faz parte desta fatia
+@WebMvcTest(controllers = PagamentoController.class, properties = "pagamento.rate-limit.enabled=false")
 public class PagamentoControllerTests {
 
     @Autowired
@@ -41,9 +50,13 @@ public class PagamentoControllerTests {
 
     @MockBean
     private PagamentoService service;
+
+    @MockBean
+    private IdempotenciaService idempotenciaService;
     private PagamentoDTO pagamentoDTO;
     private Long existingId;
     private Long nonExistingId;
+    private Long archivedId;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -54,18 +67,22 @@ public class PagamentoControllerTests {
 
         List<PagamentoDTO> list = List.of(pagamentoDTO);
 
-        Mockito.when(service.findAll()).thenReturn(list);
+        Mockito.when(service.findAll(any(), anyInt(), any())).thenReturn(new CursorPageDTO<>(list, null));
 
         existingId = (Long) 1L;
         nonExistingId = (Long) 10L;
+        archivedId = 20L;
 
         Mockito.when(service.findById(existingId)).thenReturn(pagamentoDTO);
         Mockito.when(service.findById(nonExistingId)).thenThrow(ResourceNotFoundException.class);
         Mockito.when(service.insert(any())).thenReturn(pagamentoDTO);
-        Mockito.when(service.update(eq(existingId), any())).thenReturn(pagamentoDTO);
-        Mockito.when(service.update(eq(nonExistingId), any())).thenThrow(ResourceNotFoundException.class);
+        Mockito.when(service.update(eq(existingId), any(), any())).thenReturn(pagamentoDTO);
+        Mockito.when(service.update(eq(nonExistingId), any(), any())).thenThrow(ResourceNotFoundException.class);
         Mockito.doNothing().when(service).delete(existingId);
         Mockito.doThrow(ResourceNotFoundException.class).when(service).delete(nonExistingId);
+        Mockito.doThrow(PagamentoArquivadoException.class).when(service).delete(archivedId);
+        Mockito.doNothing().when(service).updateStatus(eq(existingId), any());
+        Mockito.doThrow(StatusTransitionException.class).when(service).updateStatus(eq(nonExistingId), any());
     }
 
     @Test
@@ -139,6 +156,28 @@ public class PagamentoControllerTests {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void updateStatusShouldReturnNoContentWhenTransitionIsValid() throws Exception{
+        String jsonBody = objectMapper.writeValueAsString(new StatusDTO(Status.CONFIRMADO));
+
+        mockMvc.perform(patch("/pagamentos/{id}/status", existingId)
+                .content(jsonBody)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void updateStatusShouldReturnConflictWhenTransitionIsInvalid() throws Exception{
+        String jsonBody = objectMapper.writeValueAsString(new StatusDTO(Status.CANCELADO));
+
+        mockMvc.perform(patch("/pagamentos/{id}/status", nonExistingId)
+                .content(jsonBody)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isConflict());
+    }
+
     @Test
     public void deleteShouldDoNothingWhenIdExists() throws Exception{
         mockMvc.perform(delete("/pagamentos/{id}", existingId)
@@ -156,6 +195,13 @@ public class PagamentoControllerTests {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void deleteShouldReturnConflictWhenPaymentIsArchived() throws Exception{
+        mockMvc.perform(delete("/pagamentos/{id}", archivedId)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
 
 
 }
@@ -1,22 +1,53 @@
 package br.com.fiap.ms_pagamento.repository;
 
+import br.com.fiap.ms_pagamento.config.CriptografiaConfiguration;
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
 import br.com.fiap.ms_pagamento.model.Pagamento;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.service.CriptografiaService;
 import br.com.fiap.ms_pagamento.tests.Factory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
-
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
-@DataJpaTest
+// o slice JPA não carrega os @Service: o interceptor que cifra o cartão vem importado
+// o StatementInspector guarda o SQL gerado para o plano ser conferido com EXPLAIN
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "br.com.fiap.ms_pagamento.repository.PagamentoRepositoryTests$UltimoSql")
+@Import({CriptografiaConfiguration.class, CriptografiaService.class, SimpleMeterRegistry.class})
 public class PagamentoRepositoryTests {
 
     @Autowired
     private PagamentoRepository repository;
 
+    @Autowired
+    private CriptografiaService criptografia;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PagamentoRepositoryImpl repositoryImpl;
+
     private Long existingId;
     private Long nonExistingId;
     private Long countTotalPagamento;
@@ -67,8 +98,129 @@ public class PagamentoRepositoryTests {
         Assertions.assertTrue(results.isPresent());
     }
 
+    @Test
+    @DisplayName("save deveria gravar número do cartão e código de segurança cifrados")
+    public void saveShouldStoreCardDataEncrypted() {
+        Pagamento pagamento = Factory.createPagamento();
+        pagamento.setId(null);
+        pagamento = repository.saveAndFlush(pagamento);
+        entityManager.clear();
+
+        Object[] colunas = (Object[]) entityManager.getEntityManager()
+                .createNativeQuery("SELECT numero_do_cartao, codigo_de_seguranca FROM tb_pagamento WHERE id = :id")
+                .setParameter("id", pagamento.getId())
+                .getSingleResult();
+        Assertions.assertTrue(((String) colunas[0]).startsWith("k1:"));
+        Assertions.assertTrue(((String) colunas[1]).startsWith("k1:"));
+
+        // a entidade carregada tem o valor gravado; decifra só com o id desta linha
+        Pagamento lido = repository.findById(pagamento.getId()).get();
+        Assertions.assertEquals("2365145936541245", criptografia.decifrar(CriptografiaService.NUMERO_DO_CARTAO,
+                lido.getId(), lido.getNumeroDoCartao()));
+        Assertions.assertEquals("585", criptografia.decifrar(CriptografiaService.CODIGO_DE_SEGURANCA,
+                lido.getId(), lido.getCodigoDeSeguranca()));
+    }
+
+    @Test
+    @DisplayName("findPage deveria usar o índice do filtro informado")
+    public void findPageShouldUseIndexOfGivenFilter() {
+        List<PagamentoDTO> porStatus = repository.findPage(null, Status.CRIADO, null, null, null, null,
+                PageRequest.of(0, 10));
+        Assertions.assertFalse(porStatus.isEmpty());
+        Assertions.assertTrue(porStatus.stream().allMatch(dto -> dto.getStatus() == Status.CRIADO));
+        Assertions.assertTrue(plano("CRIADO", 10).contains("IDX_PAGAMENTO_STATUS_ID"));
+
+        repository.findPage(null, null, 1L, null, null, null, PageRequest.of(0, 10));
+        Assertions.assertTrue(plano(1L, 10).contains("IDX_PAGAMENTO_PEDIDO_STATUS"));
+
+        repository.findPage(1L, null, null, 2L, null, null, PageRequest.of(0, 10));
+        Assertions.assertTrue(plano(1L, 2L, 10).contains("IDX_PAGAMENTO_FORMA_ID"));
+
+        repository.findPage(null, null, null, null, BigDecimal.valueOf(100), null, PageRequest.of(0, 10));
+        Assertions.assertTrue(plano(BigDecimal.valueOf(100), 10).contains("IDX_PAGAMENTO_VALOR_ID"));
+    }
+
+    @Test
+    @DisplayName("findPage sem filtros deveria ler pela chave primária, na ordem de id")
+    public void findPageShouldScanPrimaryKeyWhenNoFilterIsGiven() {
+        List<PagamentoDTO> pagina = repository.findPage(1L, null, null, null, null, null, PageRequest.of(0, 2));
+
+        Assertions.assertEquals(List.of(2L, 3L), pagina.stream().map(PagamentoDTO::getId).toList());
+        Assertions.assertFalse(UltimoSql.sql.toLowerCase().contains(" is null"));
+        Assertions.assertTrue(plano(1L, 2).contains("PRIMARY_KEY"));
+    }
 
+    @Test
+    @DisplayName("deleteAllReturning deveria excluir e devolver as linhas, com RETURNING no H2 e na forma portátil")
+    public void deleteAllReturningShouldReturnDeletedRowsOnBothPaths() {
+        Assertions.assertEquals(DatabaseDriver.H2, repositoryImpl.banco());
+        List<PagamentoDTO> retorno = repository.deleteAllReturning(List.of(2L, 1L, nonExistingId));
+        Assertions.assertEquals(List.of(1L, 2L), retorno.stream().map(PagamentoDTO::getId).toList());
+
+        // banco sem forma de DELETE com retorno: SELECT ... FOR UPDATE + DELETE
+        ReflectionTestUtils.setField(repositoryImpl, "banco", DatabaseDriver.UNKNOWN);
+        List<PagamentoDTO> portatil;
+        try {
+            portatil = repository.deleteAllReturning(List.of(5L, 4L, nonExistingId));
+        } finally {
+            ReflectionTestUtils.setField(repositoryImpl, "banco", null);
+        }
+        Assertions.assertEquals(List.of(4L, 5L), portatil.stream().map(PagamentoDTO::getId).toList());
+        Assertions.assertEquals(Status.CANCELADO, portatil.get(1).getStatus());
+        Assertions.assertEquals(4L, portatil.get(1).getPedidoId());
+
+        entityManager.clear();
+        Assertions.assertEquals(List.of(3L, 6L), repository.findAll().stream().map(Pagamento::getId).sorted().toList());
+    }
 
+    @Test
+    @DisplayName("updateStatusReturning deveria devolver a linha atualizada, com RETURNING no H2 e na forma portátil")
+    public void updateStatusReturningShouldReturnUpdatedRowOnBothPaths() {
+        Long versao = repository.findVersaoById(1L).orElseThrow();
+        Optional<PagamentoDTO> retorno = repository.updateStatusReturning(1L, Status.CRIADO, Status.CONFIRMADO,
+                Instant.now());
+        Assertions.assertEquals(Status.CONFIRMADO, retorno.orElseThrow().getStatus());
+        Assertions.assertEquals(versao + 1, retorno.get().getVersao());
+        Assertions.assertEquals(1L, retorno.get().getPedidoId());
+        // compare-and-set: já não está CRIADO
+        Assertions.assertTrue(repository.updateStatusReturning(1L, Status.CRIADO, Status.CANCELADO,
+                Instant.now()).isEmpty());
+        Assertions.assertTrue(repository.updateStatusReturning(nonExistingId, Status.CRIADO, Status.CANCELADO,
+                Instant.now()).isEmpty());
+
+        // banco sem forma de UPDATE com retorno: UPDATE em massa + SELECT
+        ReflectionTestUtils.setField(repositoryImpl, "banco", DatabaseDriver.UNKNOWN);
+        Optional<PagamentoDTO> portatil;
+        try {
+            portatil = repository.updateStatusReturning(4L, Status.CRIADO, Status.CANCELADO, Instant.now());
+        } finally {
+            ReflectionTestUtils.setField(repositoryImpl, "banco", null);
+        }
+        Assertions.assertEquals(Status.CANCELADO, portatil.orElseThrow().getStatus());
+        Assertions.assertEquals(4L, portatil.get().getPedidoId());
+
+        entityManager.clear();
+        Assertions.assertEquals(Status.CONFIRMADO, repository.findById(1L).orElseThrow().getStatus());
+        Assertions.assertEquals(Status.CANCELADO, repository.findById(4L).orElseThrow().getStatus());
+    }
+
+    // EXPLAIN do último SELECT gerado pelo Hibernate, com os mesmos parâmetros
+    private String plano(Object... parametros) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + UltimoSql.sql, String.class, parametros).toUpperCase();
+    }
+
+    public static class UltimoSql implements StatementInspector {
+
+        static volatile String sql;
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.toLowerCase().startsWith("select")) {
+                UltimoSql.sql = sql;
+            }
+            return sql;
+        }
+    }
 }
 
 // mudança no deleteById na versão 3.X.X do spring boot - ele não lança exception
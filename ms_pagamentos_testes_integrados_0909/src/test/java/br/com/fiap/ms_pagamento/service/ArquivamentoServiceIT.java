@@ -0,0 +1,114 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.dto.StatusDTO;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.repository.PagamentoArquivadoRepository;
+import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import br.com.fiap.ms_pagamento.service.exception.PagamentoArquivadoException;
+import br.com.fiap.ms_pagamento.service.exception.ResourceNotFoundException;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+// idade 0: todo pagamento encerrado do import.sql (ids 5 - CANCELADO e 6 - CONFIRMADO) já pode ser arquivado
+@SpringBootTest(properties = "pagamento.arquivamento.idade=0s")
+@Transactional
+public class ArquivamentoServiceIT {
+
+    @Autowired
+    private ArquivamentoService arquivamentoService;
+
+    @Autowired
+    private PagamentoService service;
+
+    @Autowired
+    private PagamentoRepository repository;
+
+    @Autowired
+    private PagamentoArquivadoRepository arquivadoRepository;
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(arquivamentoService, "tamanhoLote", 500);
+    }
+
+    @Test
+    @DisplayName("arquivar deveria mover só os pagamentos encerrados para o arquivo")
+    public void arquivarShouldMoveOnlyFinishedPayments() {
+        int arquivados = arquivamentoService.arquivar();
+
+        Assertions.assertEquals(2, arquivados);
+        Assertions.assertEquals(4, repository.count());
+        Assertions.assertEquals(2, arquivadoRepository.count());
+        Assertions.assertTrue(repository.findById(1L).isPresent());
+        Assertions.assertFalse(repository.findById(6L).isPresent());
+    }
+
+    @Test
+    @DisplayName("arquivar deveria percorrer vários lotes pelo cursor")
+    public void arquivarShouldProcessSeveralBatches() {
+        ReflectionTestUtils.setField(arquivamentoService, "tamanhoLote", 1);
+
+        Assertions.assertEquals(2, arquivamentoService.arquivar());
+        Assertions.assertEquals(0, arquivamentoService.arquivar());
+    }
+
+    @Test
+    @DisplayName("findById e findVersao deveriam encontrar o pagamento arquivado")
+    public void findByIdShouldFallBackToArchive() {
+        arquivamentoService.arquivar();
+
+        PagamentoDTO dto = service.findById(6L);
+
+        Assertions.assertEquals(6L, dto.getId());
+        Assertions.assertEquals(Status.CONFIRMADO, dto.getStatus());
+        Assertions.assertEquals(0L, service.findVersao(6L));
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+            service.findById(50L);
+        });
+    }
+
+    @Test
+    @DisplayName("update, updateStatus e delete deveriam lançar PagamentoArquivadoException para um pagamento arquivado")
+    public void writesShouldThrowPagamentoArquivadoWhenPaymentIsArchived() {
+        arquivamentoService.arquivar();
+        PagamentoDTO dto = service.findById(6L);
+
+        Assertions.assertThrows(PagamentoArquivadoException.class, () -> {
+            service.update(6L, dto, null);
+        });
+        Assertions.assertThrows(PagamentoArquivadoException.class, () -> {
+            service.updateStatus(6L, new StatusDTO(Status.CANCELADO));
+        });
+        Assertions.assertThrows(PagamentoArquivadoException.class, () -> {
+            service.delete(6L);
+        });
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+            service.delete(50L);
+        });
+        Assertions.assertEquals(0, service.deleteAll(List.of(6L)));
+        Assertions.assertTrue(arquivadoRepository.existsById(6L));
+    }
+
+    @Test
+    @DisplayName("findByPedidoId e findByPedidoIds deveriam juntar os pagamentos arquivados do pedido")
+    public void findByPedidoShouldIncludeArchivedPayments() {
+        arquivamentoService.arquivar();
+
+        // pedido 4: id 4 (CRIADO) continua em tb_pagamento, id 5 (CANCELADO) foi arquivado
+        Assertions.assertEquals(List.of(4L, 5L), service.findByPedidoId(4L, null).stream()
+                .map(PagamentoDTO::getId).toList());
+        Assertions.assertEquals(List.of(5L), service.findByPedidoId(4L, Status.CANCELADO).stream()
+                .map(PagamentoDTO::getId).toList());
+        Assertions.assertEquals(List.of(1L, 4L, 5L, 6L), service.findByPedidoIds(List.of(6L, 4L, 1L), null).stream()
+                .map(PagamentoDTO::getId).toList());
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.tests.Factory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+@Transactional
+public class CriptografiaServiceIT {
+
+    @Autowired
+    private PagamentoService service;
+
+    @Autowired
+    private RecifragemService recifragemService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("insert deveria gravar o cartão cifrado e a leitura deveria devolvê-lo decifrado")
+    public void insertShouldStoreCardEncrypted() {
+        PagamentoDTO dto = service.insert(Factory.createPagamentoDTO());
+
+        Assertions.assertTrue(coluna("numero_do_cartao", dto.getId()).startsWith("k1:"));
+        Assertions.assertTrue(coluna("codigo_de_seguranca", dto.getId()).startsWith("k1:"));
+        Assertions.assertEquals("************1245", dto.getCartaoMascarado());
+        entityManager.clear();
+        PagamentoDTO lido = service.findById(dto.getId());
+        Assertions.assertEquals("2365145936541245", lido.getNumeroDoCartao());
+        Assertions.assertEquals("585", lido.getCodigoDeSeguranca());
+        Assertions.assertEquals("************1245", lido.getCartaoMascarado());
+    }
+
+    @Test
+    @DisplayName("as linhas do import.sql deveriam estar cifradas")
+    public void seedRowsShouldBeEncrypted() {
+        Assertions.assertTrue(coluna("numero_do_cartao", 1L).startsWith("k1:"));
+        Assertions.assertEquals("1234567890123456", service.findById(1L).getNumeroDoCartao());
+    }
+
+    @Test
+    @DisplayName("update deveria cifrar o cartão novo sem um segundo UPDATE no commit")
+    public void updateShouldEncryptChangedCard() {
+        PagamentoDTO dto = Factory.createPagamentoDTO();
+
+        PagamentoDTO atualizado = service.update(2L, dto, null);
+        entityManager.flush();
+
+        Assertions.assertEquals(1L, atualizado.getVersao());
+        Assertions.assertEquals(1L, versao(2L));
+        Assertions.assertTrue(coluna("numero_do_cartao", 2L).startsWith("k1:"));
+        entityManager.clear();
+        Assertions.assertEquals("2365145936541245", service.findById(2L).getNumeroDoCartao());
+    }
+
+    @Test
+    @DisplayName("valor cifrado copiado de outra linha não deveria decifrar")
+    public void readShouldFailWhenCiphertextIsMovedToAnotherRow() {
+        entityManager.createNativeQuery("UPDATE tb_pagamento SET numero_do_cartao = " +
+                "(SELECT numero_do_cartao FROM tb_pagamento WHERE id = 1) WHERE id = 2").executeUpdate();
+
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            service.findById(2L);
+        });
+    }
+
+    @Test
+    @DisplayName("texto puro legado deveria ser lido, contado e depois cifrado pela recifragem")
+    public void recifrarShouldEncryptLegacyPlaintext() {
+        entityManager.createNativeQuery("INSERT INTO tb_pagamento(id, valor, nome, numero_do_cartao, validade, " +
+                "codigo_de_seguranca, status, pedido_id, forma_de_pagamento_id, versao, criado_em, atualizado_em) " +
+                "VALUES (900, 10, 'Legado', '4111111111111111', '12/30', '123', 'CRIADO', 9, 2, 0, " +
+                "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)").executeUpdate();
+        double textoPuro = registry.counter("pagamento.criptografia.texto-puro", "coluna",
+                CriptografiaService.NUMERO_DO_CARTAO).count();
+
+        Assertions.assertEquals("************1111", service.findById(900L).getCartaoMascarado());
+        Assertions.assertEquals(textoPuro + 1, registry.counter("pagamento.criptografia.texto-puro", "coluna",
+                CriptografiaService.NUMERO_DO_CARTAO).count());
+
+        Assertions.assertEquals(1, recifragemService.recifrar());
+        Assertions.assertEquals(0, recifragemService.recifrar());
+        Assertions.assertTrue(coluna("numero_do_cartao", 900L).startsWith("k1:"));
+        Assertions.assertTrue(coluna("codigo_de_seguranca", 900L).startsWith("k1:"));
+        Assertions.assertEquals(0L, versao(900L));
+        entityManager.clear();
+        Assertions.assertEquals("4111111111111111", service.findById(900L).getNumeroDoCartao());
+    }
+
+    private String coluna(String nome, Long id) {
+        entityManager.flush();
+        return (String) entityManager.createNativeQuery("SELECT " + nome + " FROM tb_pagamento WHERE id = :id")
+                .setParameter("id", id)
+                .getSingleResult();
+    }
+
+    private long versao(Long id) {
+        return ((Number) entityManager.createNativeQuery("SELECT versao FROM tb_pagamento WHERE id = :id")
+                .setParameter("id", id)
+                .getSingleResult()).longValue();
+    }
+}
@@ -0,0 +1,207 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.service.exception.DatabaseException;
+import br.com.fiap.ms_pagamento.service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+
+public class GroupCommitWriterTests {
+
+    private PagamentoService service;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry registry;
+    private GroupCommitWriter writer;
+    private ExecutorService executor;
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setup() {
+        service = Mockito.mock(PagamentoService.class);
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        registry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(8);
+        Mockito.when(service.insert(any())).thenAnswer(invocation -> comId(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        writer.encerrar();
+    }
+
+    @Test
+    @DisplayName("insert deveria juntar requisições concorrentes numa só transação e devolver o id de cada uma")
+    public void insertShouldCoalesceConcurrentRequestsIntoOneTransaction() throws Exception {
+        writer = criarWriter(100, 10, Duration.ofMillis(500));
+
+        List<Future<PagamentoDTO>> futures = new ArrayList<>();
+        for (long pedidoId = 1; pedidoId <= 5; pedidoId++) {
+            PagamentoDTO dto = dto(pedidoId);
+            futures.add(executor.submit(() -> writer.insert(dto)));
+        }
+
+        List<Long> pedidos = new ArrayList<>();
+        for (Future<PagamentoDTO> future : futures) {
+            PagamentoDTO result = future.get(5, TimeUnit.SECONDS);
+            Assertions.assertNotNull(result.getId());
+            pedidos.add(result.getPedidoId());
+        }
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L), pedidos);
+        Assertions.assertEquals(1, registry.get("pagamento.group-commit.lote").summary().count());
+        Assertions.assertEquals(5.0, registry.get("pagamento.group-commit.lote").summary().totalAmount());
+        Mockito.verify(transactionManager, Mockito.times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("insert deveria regravar cada item isoladamente quando o lote falha, propagando só o erro do item ruim")
+    public void insertShouldRetryItemsIsolatedWhenBatchFails() throws Exception {
+        Mockito.doThrow(new DatabaseException("Violação de integridade"))
+                .when(service).insert(Mockito.argThat(dto -> dto != null && dto.getPedidoId() == 99L));
+        writer = criarWriter(100, 10, Duration.ofMillis(500));
+
+        Future<PagamentoDTO> bom = executor.submit(() -> writer.insert(dto(1L)));
+        Future<PagamentoDTO> ruim = executor.submit(() -> writer.insert(dto(99L)));
+
+        Assertions.assertEquals(1L, bom.get(5, TimeUnit.SECONDS).getPedidoId());
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> {
+            ruim.get(5, TimeUnit.SECONDS);
+        });
+        Assertions.assertInstanceOf(DatabaseException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("insert deveria lançar ServiceUnavailableException quando a fila está cheia")
+    public void insertShouldThrowServiceUnavailableWhenQueueIsFull() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch gravando = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            gravando.countDown();
+            liberar.await();
+            return comId(invocation.getArgument(0));
+        }).when(service).insert(any());
+        writer = criarWriter(1, 1, Duration.ZERO);
+
+        Future<PagamentoDTO> primeiro = executor.submit(() -> writer.insert(dto(1L)));
+        Assertions.assertTrue(gravando.await(5, TimeUnit.SECONDS));
+        Future<PagamentoDTO> segundo = executor.submit(() -> writer.insert(dto(2L)));
+        // o writer está preso no primeiro e o segundo ocupa a única vaga da fila
+        while (registry.get("pagamento.group-commit.fila").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> {
+            writer.insert(dto(3L));
+        });
+
+        liberar.countDown();
+        Assertions.assertEquals(1L, primeiro.get(5, TimeUnit.SECONDS).getPedidoId());
+        Assertions.assertEquals(2L, segundo.get(5, TimeUnit.SECONDS).getPedidoId());
+    }
+
+    @Test
+    @DisplayName("insert não deveria gravar o item cujo chamador recebeu 503 por timeout")
+    public void insertShouldNotPersistItemCancelledByTimeout() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch gravando = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            gravando.countDown();
+            liberar.await();
+            return comId(invocation.getArgument(0));
+        }).when(service).insert(any());
+        writer = criarWriter(10, 1, Duration.ZERO);
+        ReflectionTestUtils.setField(writer, "timeout", Duration.ofMillis(100));
+
+        Future<PagamentoDTO> primeiro = executor.submit(() -> writer.insert(dto(1L)));
+        Assertions.assertTrue(gravando.await(5, TimeUnit.SECONDS));
+
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> {
+            writer.insert(dto(2L));
+        });
+        Assertions.assertEquals(0.0, registry.get("pagamento.group-commit.fila").gauge().value());
+
+        liberar.countDown();
+        // o primeiro já estava sendo gravado: espera o resultado real em vez de responder 503
+        Assertions.assertEquals(1L, primeiro.get(5, TimeUnit.SECONDS).getPedidoId());
+        Mockito.verify(service, Mockito.never()).insert(Mockito.argThat(dto -> dto != null && dto.getPedidoId() == 2L));
+    }
+
+    @Test
+    @DisplayName("encerrar deveria falhar os itens ainda na fila quando o writer não termina a tempo")
+    public void encerrarShouldFailQueuedItemsWhenWriterIsStopped() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch gravando = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            gravando.countDown();
+            liberar.await();
+            return comId(invocation.getArgument(0));
+        }).when(service).insert(any());
+        writer = criarWriter(10, 1, Duration.ZERO);
+        ReflectionTestUtils.setField(writer, "timeout", Duration.ofMillis(200));
+
+        Future<PagamentoDTO> primeiro = executor.submit(() -> writer.insert(dto(1L)));
+        Assertions.assertTrue(gravando.await(5, TimeUnit.SECONDS));
+        Future<PagamentoDTO> segundo = executor.submit(() -> writer.insert(dto(2L)));
+        while (registry.get("pagamento.group-commit.fila").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        writer.encerrar();
+
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> {
+            segundo.get(5, TimeUnit.SECONDS);
+        });
+        Assertions.assertInstanceOf(ServiceUnavailableException.class, e.getCause());
+        Assertions.assertThrows(ExecutionException.class, () -> {
+            primeiro.get(5, TimeUnit.SECONDS);
+        });
+        Mockito.verify(service, Mockito.never()).insert(Mockito.argThat(dto -> dto != null && dto.getPedidoId() == 2L));
+    }
+
+    private GroupCommitWriter criarWriter(int capacidade, int lote, Duration janela) {
+        GroupCommitWriter novo = new GroupCommitWriter();
+        ReflectionTestUtils.setField(novo, "service", service);
+        ReflectionTestUtils.setField(novo, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(novo, "registry", registry);
+        ReflectionTestUtils.setField(novo, "capacidade", capacidade);
+        ReflectionTestUtils.setField(novo, "tamanhoLote", lote);
+        ReflectionTestUtils.setField(novo, "janela", janela);
+        ReflectionTestUtils.setField(novo, "esperaFila", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(novo, "timeout", Duration.ofSeconds(5));
+        novo.iniciar();
+        return novo;
+    }
+
+    private PagamentoDTO comId(PagamentoDTO dto) {
+        return new PagamentoDTO(ids.incrementAndGet(), dto.getValor(), dto.getNome(), dto.getNumeroDoCartao(),
+                dto.getValidade(), dto.getCodigoDeSeguranca(), Status.CRIADO, dto.getPedidoId(),
+                dto.getFormaDePagamentoId());
+    }
+
+    private static PagamentoDTO dto(Long pedidoId) {
+        return new PagamentoDTO(null, BigDecimal.valueOf(100), null, null, null, null, null, pedidoId, 1L);
+    }
+}
@@ -0,0 +1,137 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.config.CifraAesGcm;
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.repository.IdempotenciaRepository;
+import br.com.fiap.ms_pagamento.service.exception.IdempotencyKeyInProgressException;
+import br.com.fiap.ms_pagamento.service.exception.IdempotencyKeyMismatchException;
+import br.com.fiap.ms_pagamento.tests.Factory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+
+public class IdempotenciaServiceTests {
+
+    private IdempotenciaService service;
+    private PagamentoDTO requisicao;
+    private PagamentoDTO resposta;
+    private CountDownLatch dentro;
+    private CountDownLatch liberar;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        requisicao = Factory.createPagamentoDTO();
+        resposta = new PagamentoDTO(Factory.createPagamento());
+        dentro = new CountDownLatch(1);
+        liberar = new CountDownLatch(1);
+        executor = Executors.newSingleThreadExecutor();
+
+        IdempotenciaRepository repository = Mockito.mock(IdempotenciaRepository.class);
+        Mockito.when(repository.findById(any())).thenReturn(Optional.empty());
+        TransactionTemplate transactionTemplate = Mockito.mock(TransactionTemplate.class);
+        Mockito.doAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+
+        CriptografiaService criptografia = new CriptografiaService();
+        ReflectionTestUtils.setField(criptografia, "cifra", new CifraAesGcm(Map.of("k1", new byte[32]), "k1"));
+
+        service = new IdempotenciaService();
+        ReflectionTestUtils.setField(service, "criptografia", criptografia);
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(service, "entityManager", Mockito.mock(EntityManager.class));
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(service, "memoryTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(service, "espera", Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("execute deveria lançar IdempotencyKeyInProgressException quando a primeira requisição não termina na espera")
+    public void executeShouldThrowInProgressWhenFirstRequestDoesNotFinishInTime() throws Exception {
+        Future<PagamentoDTO> primeira = executor.submit(() -> service.execute("cliente", "chave", requisicao,
+                this::gravarDevagar));
+        Assertions.assertTrue(dentro.await(5, TimeUnit.SECONDS));
+
+        Assertions.assertThrows(IdempotencyKeyInProgressException.class, () -> {
+            service.execute("cliente", "chave", requisicao, () -> Assertions.fail("não deveria gravar de novo"));
+        });
+
+        liberar.countDown();
+        Assertions.assertSame(resposta, primeira.get(5, TimeUnit.SECONDS));
+        Assertions.assertSame(resposta, service.execute("cliente", "chave", requisicao,
+                () -> Assertions.fail("não deveria gravar de novo")));
+    }
+
+    @Test
+    @DisplayName("execute deveria lançar IdempotencyKeyMismatchException quando a chave volta com outro corpo")
+    public void executeShouldThrowMismatchWhenBodyChanges() {
+        service.execute("cliente", "chave", requisicao, () -> resposta);
+        PagamentoDTO outroCorpo = new PagamentoDTO(null, BigDecimal.valueOf(1), requisicao.getNome(),
+                requisicao.getNumeroDoCartao(), requisicao.getValidade(), requisicao.getCodigoDeSeguranca(),
+                requisicao.getStatus(), requisicao.getPedidoId(), requisicao.getFormaDePagamentoId());
+
+        Assertions.assertThrows(IdempotencyKeyMismatchException.class, () -> {
+            service.execute("cliente", "chave", outroCorpo, () -> Assertions.fail("não deveria gravar de novo"));
+        });
+    }
+
+    @Test
+    @DisplayName("execute deveria lançar IdempotencyKeyMismatchException quando a chave volta com outro cartão")
+    public void executeShouldThrowMismatchWhenCardChanges() {
+        service.execute("cliente", "chave", requisicao, () -> resposta);
+        PagamentoDTO outroCartao = new PagamentoDTO(null, requisicao.getValor(), requisicao.getNome(),
+                "4111111111111111", requisicao.getValidade(), "123",
+                requisicao.getStatus(), requisicao.getPedidoId(), requisicao.getFormaDePagamentoId());
+
+        Assertions.assertThrows(IdempotencyKeyMismatchException.class, () -> {
+            service.execute("cliente", "chave", outroCartao, () -> Assertions.fail("não deveria gravar de novo"));
+        });
+    }
+
+    @Test
+    @DisplayName("execute deveria tratar a mesma chave de clientes diferentes como chaves diferentes")
+    public void executeShouldScopeKeysByClient() {
+        PagamentoDTO outra = new PagamentoDTO(Factory.createPagamento());
+
+        Assertions.assertSame(resposta, service.execute("cliente-a", "chave", requisicao, () -> resposta));
+        Assertions.assertSame(outra, service.execute("cliente-b", "chave", requisicao, () -> outra));
+    }
+
+    private PagamentoDTO gravarDevagar() {
+        dentro.countDown();
+        try {
+            liberar.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return resposta;
+    }
+}
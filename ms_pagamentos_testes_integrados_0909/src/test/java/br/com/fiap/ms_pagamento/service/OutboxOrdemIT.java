@@ -0,0 +1,120 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.EventoDTO;
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.model.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Sem @Transactional: a ordem depende dos commits de verdade. O teste chama o publicador direto em vez de esperar o
+// agendado; se o agendado pegar os mesmos eventos no meio, o sink os recebe antes do DELETE, e a chamada do teste
+// só volta depois de entregar o que ainda estava no outbox.
+@SpringBootTest
+public class OutboxOrdemIT {
+
+    private static final long PEDIDO = 9001L;
+
+    @Autowired
+    private PagamentoService service;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OutboxPublisher publisher;
+
+    @Autowired
+    private EventoSink sink;
+
+    private final List<Long> criados = new ArrayList<>();
+
+    // outros testes deixam eventos no outbox: com lote de 1, esvaziá-lo evento a evento levaria segundos
+    @BeforeEach
+    void setup() {
+        publisher.publicarPendentes();
+        ((MemoriaEventoSink) sink).limpar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(publisher, "tamanhoLote", 500);
+        criados.forEach(service::delete);
+    }
+
+    @Test
+    @DisplayName("eventos do mesmo pedido deveriam sair na ordem de commit, não na ordem de id")
+    public void eventsShouldFollowCommitOrderWhenIdsAreReversed() throws Exception {
+        publicarNaOrdemContraria();
+    }
+
+    @Test
+    @DisplayName("lote de um evento deveria trazer junto o anterior do pedido que ficou fora dele")
+    public void singleEventBatchShouldPullEarlierEventOfSamePedido() throws Exception {
+        ReflectionTestUtils.setField(publisher, "tamanhoLote", 1);
+        publicarNaOrdemContraria();
+    }
+
+    // A grava primeiro (id menor) e segura a transação; B grava depois (id maior) e faz commit antes de A
+    private void publicarNaOrdemContraria() throws Exception {
+        CountDownLatch gravou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<PagamentoDTO> primeiro = executor.submit(() -> transactionTemplate.execute(status -> {
+                PagamentoDTO dto = service.insert(pagamento());
+                gravou.countDown();
+                try {
+                    liberar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return dto;
+            }));
+            Assertions.assertTrue(gravou.await(5, TimeUnit.SECONDS));
+            PagamentoDTO segundo = service.insert(pagamento());
+            liberar.countDown();
+            PagamentoDTO a = primeiro.get(5, TimeUnit.SECONDS);
+            criados.add(a.getId());
+            criados.add(segundo.getId());
+
+            publisher.publicarPendentes();
+            List<EventoDTO> eventos = publicados();
+            Assertions.assertEquals(List.of(segundo.getId(), a.getId()),
+                    eventos.stream().map(EventoDTO::getPagamentoId).toList());
+            Assertions.assertEquals(eventos.get(0).getSequencia() + 1, eventos.get(1).getSequencia());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // primeira entrega de cada evento do pedido (at-least-once: pode haver repetição)
+    private List<EventoDTO> publicados() {
+        List<Long> vistos = new ArrayList<>();
+        return ((MemoriaEventoSink) sink).getEventos().stream()
+                .filter(evento -> evento.getPedidoId() == PEDIDO)
+                .filter(evento -> criados.contains(evento.getPagamentoId()))
+                .filter(evento -> !vistos.contains(evento.getId()) && vistos.add(evento.getId()))
+                .toList();
+    }
+
+    private static PagamentoDTO pagamento() {
+        return new PagamentoDTO(null, BigDecimal.valueOf(100), "Cliente", "2365145936541245", "07/28", "585",
+                Status.CRIADO, PEDIDO, 2L);
+    }
+}
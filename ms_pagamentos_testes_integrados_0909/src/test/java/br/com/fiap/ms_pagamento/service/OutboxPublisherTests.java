@@ -0,0 +1,102 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.EventoDTO;
+import br.com.fiap.ms_pagamento.model.EventoOutbox;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.model.TipoEvento;
+import br.com.fiap.ms_pagamento.repository.EventoOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+
+public class OutboxPublisherTests {
+
+    private EventoOutboxRepository repository;
+    private MemoriaEventoSink sink;
+    private SimpleMeterRegistry registry;
+    private OutboxPublisher publisher;
+
+    @BeforeEach
+    void setup() {
+        repository = Mockito.mock(EventoOutboxRepository.class);
+        Mockito.when(repository.findLote(any())).thenReturn(List.of(evento(1L, 10L), evento(2L, 11L), evento(3L, 10L)));
+        sink = new MemoriaEventoSink(100);
+        registry = new SimpleMeterRegistry();
+        publisher = criarPublisher(sink);
+    }
+
+    @Test
+    @DisplayName("publicarLote deveria entregar os eventos na ordem e apagar o lote depois da entrega")
+    public void publicarLoteShouldDeliverInOrderAndDeleteAfterwards() {
+        int publicados = publisher.publicarLote();
+
+        Assertions.assertEquals(3, publicados);
+        Assertions.assertEquals(List.of(1L, 2L, 3L), sink.getEventos().stream().map(EventoDTO::getId).toList());
+        Mockito.verify(repository).deleteAllByIdIn(List.of(1L, 2L, 3L));
+        Assertions.assertEquals(3.0, registry.get("pagamento.outbox.publicados").counter().count());
+    }
+
+    @Test
+    @DisplayName("publicarLote não deveria apagar o lote quando o sink falha (será entregue de novo)")
+    public void publicarLoteShouldKeepEventsWhenSinkFails() {
+        publisher = criarPublisher(eventos -> {
+            throw new IllegalStateException("broker indisponível");
+        });
+
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            publisher.publicarLote();
+        });
+        Mockito.verify(repository, Mockito.never()).deleteAllByIdIn(anyList());
+        Assertions.assertEquals(1.0, registry.get("pagamento.outbox.falhas").counter().count());
+    }
+
+    @Test
+    @DisplayName("publicarLote deveria incluir os anteriores do pedido fora do lote e seguir a sequencia, não o id")
+    public void publicarLoteShouldFollowSequenceWithinPedido() {
+        // pedido 10: o id 1 foi commitado depois do id 5 (sequencia 2 x 1); o id 6 (sequencia 3) fica para depois
+        Mockito.when(repository.findLote(any())).thenReturn(List.of(evento(1L, 10L, 2L), evento(2L, 11L, 1L)));
+        Mockito.when(repository.findPendentesDosPedidos(any(), any()))
+                .thenReturn(List.of(evento(5L, 10L, 1L), evento(6L, 10L, 3L)));
+
+        int publicados = publisher.publicarLote();
+
+        Assertions.assertEquals(3, publicados);
+        Assertions.assertEquals(List.of(5L, 2L, 1L), sink.getEventos().stream().map(EventoDTO::getId).toList());
+        Mockito.verify(repository).deleteAllByIdIn(List.of(5L, 2L, 1L));
+    }
+
+    private OutboxPublisher criarPublisher(EventoSink eventoSink) {
+        registry = new SimpleMeterRegistry();
+        OutboxPublisher novo = new OutboxPublisher();
+        ReflectionTestUtils.setField(novo, "repository", repository);
+        ReflectionTestUtils.setField(novo, "sink", eventoSink);
+        ReflectionTestUtils.setField(novo, "transactionTemplate",
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(novo, "registry", registry);
+        ReflectionTestUtils.setField(novo, "tamanhoLote", 500);
+        novo.registrarMetricas();
+        return novo;
+    }
+
+    private static EventoOutbox evento(Long id, Long pedidoId) {
+        return evento(id, pedidoId, id);
+    }
+
+    private static EventoOutbox evento(Long id, Long pedidoId, Long sequencia) {
+        return new EventoOutbox(id, TipoEvento.PAGAMENTO_CRIADO, id, pedidoId, Status.CRIADO,
+                BigDecimal.TEN, 1L, Instant.now(), sequencia);
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.dto.StatusDTO;
+import br.com.fiap.ms_pagamento.model.Pagamento;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Cache de segundo nível: sem @Transactional na classe - cada leitura precisa de uma sessão nova para
+// passar pelo cache, e as escritas precisam de commit. O contexto é descartado no fim porque os dados mudam.
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class PagamentoCacheIT {
+
+    @Autowired
+    private PagamentoService service;
+
+    @Autowired
+    private PagamentoRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("findById deveria vir do cache de segundo nível a partir da segunda leitura")
+    public void findByIdShouldHitSecondLevelCacheOnSecondLoad() {
+        carregar(2L);
+        carregar(2L);
+
+        Assertions.assertEquals(1, statistics.getDomainDataRegionStatistics(Pagamento.REGIAO_CACHE).getMissCount());
+        Assertions.assertEquals(1, statistics.getDomainDataRegionStatistics(Pagamento.REGIAO_CACHE).getHitCount());
+    }
+
+    @Test
+    @DisplayName("update deveria substituir a entidade em cache pelo estado novo")
+    public void updateShouldNotLeaveStaleEntityInCache() {
+        Pagamento antes = carregar(3L);
+        PagamentoDTO dto = new PagamentoDTO(null, antes.getValor(), "Nome Alterado", antes.getNumeroDoCartao(),
+                antes.getValidade(), antes.getCodigoDeSeguranca(), antes.getStatus(), antes.getPedidoId(),
+                antes.getFormaDePagamentoId());
+
+        service.update(3L, dto, null);
+
+        Assertions.assertEquals("Nome Alterado", carregar(3L).getNome());
+    }
+
+    @Test
+    @DisplayName("delete deveria tirar a entidade do cache de segundo nível")
+    public void deleteShouldNotLeaveStaleEntityInCache() {
+        Assertions.assertNotNull(carregar(4L));
+
+        service.delete(4L);
+
+        Assertions.assertNull(carregar(4L));
+    }
+
+    @Test
+    @DisplayName("findByPedidoId deveria usar o cache de consultas e enxergar a mudança de status")
+    public void findByPedidoIdShouldHitQueryCacheAndSeeStatusChange() {
+        service.findByPedidoId(1L, null);
+        List<PagamentoDTO> antes = service.findByPedidoId(1L, null);
+        Assertions.assertEquals(1, statistics.getQueryRegionStatistics(PagamentoRepository.REGIAO_CONSULTAS)
+                .getHitCount());
+        Assertions.assertEquals(Status.CRIADO, antes.get(0).getStatus());
+
+        service.updateStatus(1L, new StatusDTO(Status.CONFIRMADO));
+
+        Assertions.assertEquals(Status.CONFIRMADO, service.findByPedidoId(1L, null).get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("delete deveria descartar o resultado em cache das consultas por pedido")
+    public void deleteShouldInvalidateQueryCache() {
+        PagamentoDTO criado = service.insert(new PagamentoDTO(null, BigDecimal.TEN, "Cache", "2365145936541245",
+                "07/28", "585", Status.CRIADO, 77L, 1L));
+        Assertions.assertEquals(1, service.findByPedidoId(77L, null).size());
+
+        service.delete(criado.getId());
+
+        Assertions.assertTrue(service.findByPedidoId(77L, null).isEmpty());
+    }
+
+    private Pagamento carregar(Long id) {
+        return transactionTemplate.execute(status -> repository.findById(id).orElse(null));
+    }
+}
@@ -1,14 +1,30 @@
 package br.com.fiap.ms_pagamento.service;
 
+import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
+import br.com.fiap.ms_pagamento.dto.PagamentoFilterDTO;
+import br.com.fiap.ms_pagamento.dto.StatusDTO;
+import br.com.fiap.ms_pagamento.model.EventoOutbox;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.model.TipoEvento;
+import br.com.fiap.ms_pagamento.repository.EventoOutboxRepository;
 import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import br.com.fiap.ms_pagamento.service.exception.BatchValidationException;
 import br.com.fiap.ms_pagamento.service.exception.ResourceNotFoundException;
+import br.com.fiap.ms_pagamento.service.exception.StatusTransitionException;
+import br.com.fiap.ms_pagamento.tests.Factory;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 @SpringBootTest
 @Transactional
 public class PagamentoServiceIT {
@@ -19,6 +35,9 @@ public class PagamentoServiceIT {
     @Autowired
     private PagamentoRepository repository;
 
+    @Autowired
+    private EventoOutboxRepository eventoOutboxRepository;
+
     private Long existingId;
     private Long nonExistingId;
     private Long countTotalPagamento;
@@ -45,10 +64,72 @@ public class PagamentoServiceIT {
         });
     }
 
+    @Test
+    public void deleteAllShouldDeleteExistingIdsAndIgnoreMissingOnes(){
+        int removidos = service.deleteAll(List.of(existingId, 2L, 2L, nonExistingId));
+        Assertions.assertEquals(2, removidos);
+        Assertions.assertEquals(countTotalPagamento - 2, repository.count());
+    }
+
+    @Test
+    public void deleteAllShouldThrowBatchValidationExceptionWhenIdsIsEmpty(){
+        Assertions.assertThrows(BatchValidationException.class, () -> {
+            service.deleteAll(List.of());
+        });
+    }
+
+    @Test
+    public void findByPedidoIdShouldReturnAllPagamentosOfPedido(){
+        var result = service.findByPedidoId(4L, null);
+        Assertions.assertEquals(List.of(4L, 5L), result.stream().map(PagamentoDTO::getId).toList());
+
+        var cancelados = service.findByPedidoId(4L, Status.CANCELADO);
+        Assertions.assertEquals(1, cancelados.size());
+        Assertions.assertEquals(5L, cancelados.get(0).getId());
+    }
+
+    @Test
+    public void findByPedidoIdsShouldReturnPagamentosOrderedByPedidoAndId(){
+        var result = service.findByPedidoIds(List.of(6L, 4L, 1L, 4L, 999L), null);
+        Assertions.assertEquals(List.of(1L, 4L, 5L, 6L), result.stream().map(PagamentoDTO::getId).toList());
+    }
+
+    @Test
+    public void insertShouldAppendOutboxEventInSameTransaction(){
+        PagamentoDTO dto = service.insert(Factory.createPagamentoDTO());
+
+        var eventos = eventoOutboxRepository.findAll();
+        Assertions.assertEquals(1, eventos.size());
+        Assertions.assertEquals(TipoEvento.PAGAMENTO_CRIADO, eventos.get(0).getTipo());
+        Assertions.assertEquals(dto.getId(), eventos.get(0).getPagamentoId());
+    }
+
+    @Test
+    public void updateStatusAndDeleteShouldAppendOutboxEventsInOrder(){
+        service.updateStatus(existingId, new StatusDTO(Status.CANCELADO));
+        service.delete(existingId);
+
+        var eventos = eventoOutboxRepository.findAll(Sort.by("id"));
+        Assertions.assertEquals(List.of(TipoEvento.STATUS_ALTERADO, TipoEvento.PAGAMENTO_EXCLUIDO),
+                eventos.stream().map(EventoOutbox::getTipo).toList());
+        Assertions.assertEquals(Status.CANCELADO, eventos.get(0).getStatus());
+        Assertions.assertEquals(1L, eventos.get(1).getPedidoId());
+    }
+
+    @Test
+    public void resumoShouldReturnTotalsOfPersistedPagamentos(){
+        var resumo = service.resumo();
+        Assertions.assertEquals(countTotalPagamento, resumo.getGeral().getQuantidade());
+        Assertions.assertEquals(new BigDecimal("6500.50"), resumo.getGeral().getValorTotal());
+        Assertions.assertEquals(4, resumo.getPorStatus().get(Status.CRIADO).getQuantidade());
+        Assertions.assertEquals(new BigDecimal("4100.50"), resumo.getPorStatus().get(Status.CRIADO).getValorTotal());
+        Assertions.assertEquals(new BigDecimal("2900.50"), resumo.getPorFormaDePagamento().get(2L).getValorTotal());
+    }
+
     @Test
     public void findAllShouldReturnListPagamentoDTO(){
 
-        var result = service.findAll();
+        var result = service.findAll(null, 20, new PagamentoFilterDTO()).getContent();
         Assertions.assertFalse(result.isEmpty());
         Assertions.assertEquals(countTotalPagamento, result.size());
         Assertions.assertEquals(Double.valueOf(1200.00), result.get(0).getValor().doubleValue());
@@ -58,5 +139,85 @@ public class PagamentoServiceIT {
 
     }
 
+    @Test
+    public void findAllShouldReturnNextCursorWhenThereAreMorePages(){
+
+        var page = service.findAll(null, 2, new PagamentoFilterDTO());
+        Assertions.assertEquals(2, page.getContent().size());
+        Assertions.assertEquals(2L, page.getNextCursor());
+
+        var lastPage = service.findAll(4L, 2, new PagamentoFilterDTO());
+        Assertions.assertEquals(2, lastPage.getContent().size());
+        Assertions.assertEquals(5L, lastPage.getContent().get(0).getId());
+        Assertions.assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    public void exportAllShouldWriteOneJsonLinePerPagamento() throws Exception{
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportAll(out);
+
+        String[] linhas = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(countTotalPagamento, linhas.length);
+        Assertions.assertTrue(linhas[0].contains("Nicodemus C Souza"));
+    }
+
+    @Test
+    public void insertAllShouldPersistAllPagamentos(){
+
+        List<PagamentoDTO> dtos = List.of(Factory.createPagamentoDTO(), Factory.createPagamentoDTO(),
+                Factory.createPagamentoDTO());
+        List<PagamentoDTO> result = service.insertAll(dtos);
+
+        Assertions.assertEquals(3, result.size());
+        result.forEach(dto -> Assertions.assertNotNull(dto.getId()));
+        Assertions.assertEquals(countTotalPagamento + 3, repository.count());
+    }
+
+    @Test
+    public void insertAllShouldThrowBatchValidationExceptionWhenAnyItemIsInvalid(){
+
+        PagamentoDTO invalido = new PagamentoDTO(null, null, "Bach", null, null, null, Status.CRIADO, 1L, 2L);
+        List<PagamentoDTO> dtos = List.of(Factory.createPagamentoDTO(), invalido);
+
+        BatchValidationException e = Assertions.assertThrows(BatchValidationException.class, () -> {
+            service.insertAll(dtos);
+        });
+        Assertions.assertEquals("[1].valor", e.getErrors().get(0).getFieldName());
+        Assertions.assertEquals(countTotalPagamento, repository.count());
+    }
+
+    @Test
+    public void updateStatusShouldConfirmPagamentoWhenStatusIsCriado(){
+        service.updateStatus(existingId, new StatusDTO(Status.CONFIRMADO));
+        Assertions.assertEquals(Status.CONFIRMADO, repository.findById(existingId).get().getStatus());
+    }
+
+    @Test
+    public void updateStatusShouldThrowStatusTransitionExceptionWhenStatusIsNotCriado(){
+        // id 6 do seed já está CONFIRMADO
+        Assertions.assertThrows(StatusTransitionException.class, () -> {
+            service.updateStatus(6L, new StatusDTO(Status.CANCELADO));
+        });
+    }
+
+    @Test
+    public void updateStatusShouldThrowResourceNotFoundExceptionWhenIdDoesNotExist(){
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+            service.updateStatus(nonExistingId, new StatusDTO(Status.CONFIRMADO));
+        });
+    }
+
+    @Test
+    public void findAllShouldFilterByStatus(){
+
+        PagamentoFilterDTO filtro = new PagamentoFilterDTO();
+        filtro.setStatus(Status.CANCELADO);
+        var result = service.findAll(null, 20, filtro).getContent();
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(Status.CANCELADO, result.get(0).getStatus());
+    }
+
 
 }
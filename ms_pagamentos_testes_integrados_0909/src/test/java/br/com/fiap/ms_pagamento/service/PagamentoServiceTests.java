@@ -1,6 +1,8 @@
 package br.com.fiap.ms_pagamento.service;
 
+import br.com.fiap.ms_pagamento.repository.PagamentoArquivadoRepository;
 import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import br.com.fiap.ms_pagamento.service.exception.PreconditionFailedException;
 import br.com.fiap.ms_pagamento.service.exception.ResourceNotFoundException;
 import br.com.fiap.ms_pagamento.tests.Factory;
 import jakarta.persistence.EntityNotFoundException;
@@ -16,6 +18,8 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import br.com.fiap.ms_pagamento.dto.PagamentoDTO;
 import br.com.fiap.ms_pagamento.model.Pagamento;
+import br.com.fiap.ms_pagamento.model.TipoEvento;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -31,6 +35,18 @@ public class PagamentoServiceTests {
     @Mock
     private PagamentoRepository repository;
 
+    @Mock
+    private PagamentoArquivadoRepository arquivadoRepository;
+
+    @Mock
+    private ResumoService resumoService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private CriptografiaService criptografia;
+
     //preparando os dados
     private Long existingId;
     private Long nonExistingId;
@@ -61,9 +77,12 @@ public class PagamentoServiceTests {
         //findById
         Mockito.when(repository.findById(existingId)).thenReturn(Optional.of(pagamento));
         Mockito.when(repository.findById(nonExistingId)).thenReturn(Optional.empty());
+        Mockito.when(repository.findDtoById(existingId)).thenReturn(Optional.of(pagamentoDTO));
+        Mockito.when(repository.findDtoById(nonExistingId)).thenReturn(Optional.empty());
 
         //insert
         Mockito.when(repository.save(any())).thenReturn(pagamento);
+        Mockito.when(repository.saveAndFlush(any())).thenReturn(pagamento);
 
         //update - primeiro caso - id existe
         Mockito.when(repository.getReferenceById(existingId)).thenReturn(pagamento);
@@ -76,6 +95,9 @@ public class PagamentoServiceTests {
         Mockito.when(repository.existsById(nonExistingId)).thenReturn(false);
         //delete - primeiro caso - deleta
         Mockito.doNothing().when(repository).deleteById(existingId);
+        //delete - DELETE que devolve as linhas excluídas
+        Mockito.when(repository.deleteAllReturning(List.of(existingId))).thenReturn(List.of(pagamentoDTO));
+        Mockito.when(repository.deleteAllReturning(List.of(nonExistingId))).thenReturn(List.of());
 
 
     }
@@ -91,6 +113,27 @@ public class PagamentoServiceTests {
         );
     }
 
+    @Test
+    @DisplayName("delete deveria lançar ResourceNotFoundException sem registrar evento quando o DELETE não devolve linha")
+    public void deleteShouldThrowResourceNotFoundExceptionWhenDeleteReturnsNoRow(){
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+            service.delete(nonExistingId);
+        });
+        Mockito.verify(repository).deleteAllReturning(List.of(nonExistingId));
+        Mockito.verify(repository, Mockito.never()).existsById(nonExistingId);
+        Mockito.verifyNoInteractions(resumoService, outboxService);
+    }
+
+    @Test
+    @DisplayName("delete deveria descontar do resumo e registrar o evento com a linha devolvida pelo DELETE")
+    public void deleteShouldRegisterReturnedRowWhenIdExists(){
+        service.delete(existingId);
+
+        Mockito.verify(resumoService).remover(pagamentoDTO.getStatus(), pagamentoDTO.getFormaDePagamentoId(),
+                pagamentoDTO.getValor());
+        Mockito.verify(outboxService).registrar(TipoEvento.PAGAMENTO_EXCLUIDO, pagamentoDTO);
+    }
+
     @Test
     public void deleteShouldThrowEmptyResultDataAccessExceptionWhenIdDoesNotExist(){
         long nonExistingId = 100L;
@@ -140,7 +183,7 @@ public class PagamentoServiceTests {
     @Test
     @DisplayName("update deveria retornar um pagamentoDTO quando o ID existe")
     public void updateShouldReturnValidPagamentoDTOWhenIdExists(){
-        PagamentoDTO result = service.update(this.pagamentoDTO.getId(), this.pagamentoDTO);
+        PagamentoDTO result = service.update(this.pagamentoDTO.getId(), this.pagamentoDTO, null);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(result.getId(), this.pagamentoDTO.getId());
@@ -152,12 +195,22 @@ public class PagamentoServiceTests {
     public void updateShouldThrowResourceNotFoundExceptionWhenIdDoesNotExist(){
         Assertions.assertThrows(ResourceNotFoundException.class,
                 () -> {
-                    service.update(nonExistingId, pagamentoDTO);
+                    service.update(nonExistingId, pagamentoDTO, null);
                 }
         );
     }
 
-    
+    @Test
+    @DisplayName("update deveria lançar PreconditionFailedException quando a versão esperada não é a atual")
+    public void updateShouldThrowPreconditionFailedExceptionWhenVersionDoesNotMatch(){
+        pagamento.setVersao(3L);
+        Assertions.assertThrows(PreconditionFailedException.class,
+                () -> {
+                    service.update(existingId, pagamentoDTO, 2L);
+                }
+        );
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(any());
+    }
 
 
 }
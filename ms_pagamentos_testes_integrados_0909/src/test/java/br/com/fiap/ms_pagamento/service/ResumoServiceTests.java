@@ -0,0 +1,114 @@
+package br.com.fiap.ms_pagamento.service;
+
+import br.com.fiap.ms_pagamento.dto.ResumoDTO;
+import br.com.fiap.ms_pagamento.dto.ResumoLinhaDTO;
+import br.com.fiap.ms_pagamento.model.Status;
+import br.com.fiap.ms_pagamento.repository.PagamentoArquivadoRepository;
+import br.com.fiap.ms_pagamento.repository.PagamentoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class ResumoServiceTests {
+
+    private ResumoService service;
+
+    @BeforeEach
+    void setup() {
+        PagamentoRepository repository = Mockito.mock(PagamentoRepository.class);
+        Mockito.when(repository.groupByStatusAndForma()).thenReturn(List.of(
+                new ResumoLinhaDTO(Status.CRIADO, 1L, 2L, new BigDecimal("300.00")),
+                new ResumoLinhaDTO(Status.CONFIRMADO, 2L, 1L, new BigDecimal("50.25"))));
+        PagamentoArquivadoRepository arquivadoRepository = Mockito.mock(PagamentoArquivadoRepository.class);
+
+        service = new ResumoService();
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "arquivadoRepository", arquivadoRepository);
+        service.afterSingletonsInstantiated();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("resumo deveria refletir a carga inicial e as alterações feitas fora de transação")
+    public void resumoShouldReflectInitialLoadAndChanges() {
+        service.adicionar(Status.CRIADO, 2L, new BigDecimal("10.10"));
+        service.remover(Status.CRIADO, 1L, new BigDecimal("100.00"));
+
+        ResumoDTO resumo = service.resumo();
+
+        Assertions.assertEquals(3, resumo.getGeral().getQuantidade());
+        Assertions.assertEquals(new BigDecimal("260.35"), resumo.getGeral().getValorTotal());
+        Assertions.assertEquals(2, resumo.getPorStatus().get(Status.CRIADO).getQuantidade());
+        Assertions.assertEquals(new BigDecimal("210.10"), resumo.getPorStatus().get(Status.CRIADO).getValorTotal());
+        Assertions.assertEquals(0, resumo.getPorStatus().get(Status.CANCELADO).getQuantidade());
+        Assertions.assertEquals(new BigDecimal("60.35"), resumo.getPorFormaDePagamento().get(2L).getValorTotal());
+    }
+
+    @Test
+    @DisplayName("resumo não deveria mudar antes do commit nem depois de um rollback")
+    public void resumoShouldIgnoreChangesOfRolledBackTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.adicionar(Status.CANCELADO, 3L, new BigDecimal("99.99"));
+
+        Assertions.assertEquals(0, service.resumo().getPorStatus().get(Status.CANCELADO).getQuantidade());
+
+        completar(TransactionSynchronization.STATUS_ROLLED_BACK);
+        ResumoDTO resumo = service.resumo();
+        Assertions.assertEquals(0, resumo.getPorStatus().get(Status.CANCELADO).getQuantidade());
+        Assertions.assertFalse(resumo.getPorFormaDePagamento().containsKey(3L));
+    }
+
+    @Test
+    @DisplayName("resumo deveria aplicar as alterações depois do commit")
+    public void resumoShouldApplyChangesAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.adicionar(Status.CANCELADO, 3L, new BigDecimal("99.99"));
+        service.adicionar(Status.CANCELADO, 3L, new BigDecimal("0.01"));
+
+        completar(TransactionSynchronization.STATUS_COMMITTED);
+        Assertions.assertEquals(2, service.resumo().getPorStatus().get(Status.CANCELADO).getQuantidade());
+        Assertions.assertEquals(new BigDecimal("100.00"), service.resumo().getPorFormaDePagamento().get(3L).getValorTotal());
+    }
+
+    private void completar(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    @Test
+    @DisplayName("afterSingletonsInstantiated deveria somar os pagamentos arquivados na carga inicial")
+    public void afterSingletonsInstantiatedShouldIncludeArchivedPayments() {
+        PagamentoRepository repository = Mockito.mock(PagamentoRepository.class);
+        PagamentoArquivadoRepository arquivadoRepository = Mockito.mock(PagamentoArquivadoRepository.class);
+        Mockito.when(repository.groupByStatusAndForma()).thenReturn(List.of(
+                new ResumoLinhaDTO(Status.CRIADO, 1L, 1L, new BigDecimal("100.00"))));
+        Mockito.when(arquivadoRepository.groupByStatusAndForma()).thenReturn(List.of(
+                new ResumoLinhaDTO(Status.CANCELADO, 1L, 2L, new BigDecimal("20.00"))));
+        ResumoService comArquivo = new ResumoService();
+        ReflectionTestUtils.setField(comArquivo, "repository", repository);
+        ReflectionTestUtils.setField(comArquivo, "arquivadoRepository", arquivadoRepository);
+
+        comArquivo.afterSingletonsInstantiated();
+
+        ResumoDTO resumo = comArquivo.resumo();
+        Assertions.assertEquals(3, resumo.getGeral().getQuantidade());
+        Assertions.assertEquals(2, resumo.getPorStatus().get(Status.CANCELADO).getQuantidade());
+        Assertions.assertEquals(new BigDecimal("120.00"), resumo.getPorFormaDePagamento().get(1L).getValorTotal());
+    }
+}